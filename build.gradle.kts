@@ -15,7 +15,9 @@ dependencies {
     implementation("com.google.code.gson:gson:2.10.1")
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
-    testImplementation("com.h2database", "h2", "2.2.220")
+
+    // Embedded metadata store
+    implementation("com.h2database", "h2", "2.2.220")
 
     // https://mvnrepository.com/artifact/commons-cli/commons-cli
     implementation("commons-cli:commons-cli:1.5.0")
@@ -23,6 +25,9 @@ dependencies {
     // https://mvnrepository.com/artifact/com.mysql/mysql-connector-j
     implementation("com.mysql:mysql-connector-j:8.1.0")
 
+    // https://mvnrepository.com/artifact/org.bouncycastle/bcprov-jdk18on
+    implementation("org.bouncycastle:bcprov-jdk18on:1.81")
+
 
 }
 
@@ -32,4 +37,9 @@ tasks.test {
 
 tasks.jar {
     manifest.attributes["Main-Class"] = "view.Cli"
+}
+
+tasks.shadowJar {
+    // Both JDBC drivers register themselves in META-INF/services/java.sql.Driver.
+    mergeServiceFiles()
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package dao;
+
+import java.sql.SQLException;
+
+/**
+ * Exception thrown when rows written with batches cannot be stored.
+ * The chunk that failed is rolled back, so its rows and the rows after it are not in the database.
+ */
+public class BatchWriteException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor for BatchWriteException.
+     * @param message description of the failed write
+     * @param cause error of the database
+     */
+    public BatchWriteException(String message, SQLException cause) {
+        super(message, cause);
+    }
+}
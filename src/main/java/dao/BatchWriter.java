@@ -0,0 +1,93 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Helper for writing many rows with JDBC batches.
+ * One prepared statement is reused for all rows,
+ * and the rows are committed in chunks so a chunk is written entirely or not at all.
+ * A failed chunk is thrown as {@link BatchWriteException}, so callers never go on as if the rows were stored.
+ */
+class BatchWriter {
+
+    /**
+     * Default number of rows in a chunk
+     */
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Connection connection;
+
+    private final int batchSize;
+
+    /**
+     * Functional interface for setting parameters of a row.
+     * @param <T> type of the row
+     */
+    @FunctionalInterface
+    interface ParameterSetter<T> {
+        void set(PreparedStatement pstmt, T row) throws SQLException;
+    }
+
+    /**
+     * Constructor for BatchWriter.
+     * @param connection connection to the database
+     * @param batchSize number of rows in a chunk
+     */
+    BatchWriter(Connection connection, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.connection = connection;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Execute the query for all rows.
+     * @param query query with parameters
+     * @param rows rows to write
+     * @param parameterSetter setter of the parameters for a row
+     * @param <T> type of the row
+     * @throws BatchWriteException if a chunk cannot be written; the chunks before it stay committed
+     */
+    <T> void write(String query, Collection<T> rows, ParameterSetter<T> parameterSetter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        boolean autoCommit = true;
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                int count = 0;
+                for (T row : rows) {
+                    parameterSetter.set(pstmt, row);
+                    pstmt.addBatch();
+                    if (++count % batchSize == 0) {
+                        pstmt.executeBatch();
+                        connection.commit();
+                    }
+                }
+                if (count % batchSize != 0) {
+                    pstmt.executeBatch();
+                    connection.commit();
+                }
+            }
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                e.addSuppressed(ex);
+            }
+            throw new BatchWriteException("Cannot write rows: " + query, e);
+        } finally {
+            try {
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package dao;
 
 import model.config.DatabaseConfig;
+import model.config.ScanCheckpoint;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * ConfigManager class for storing configuration information.
@@ -14,6 +17,8 @@ public class ConfigManager {
 
     public static final String TIMESTAMP_FILE_NAME = "lastRunTimestamp.txt";
 
+    public static final String CHECKPOINT_FILE_NAME = "scanCheckpoint.json";
+
     private final String timestampFileName;
 
     private long lastRunTimestamp;
@@ -74,6 +79,48 @@ public class ConfigManager {
      return lastRunTimestamp;
     }
 
+    /**
+     * Get path of the scan checkpoint file, next to the last run timestamp file
+     * @return path of the scan checkpoint file
+     */
+    public Path getCheckpointPath() {
+        return Path.of(timestampFileName).toAbsolutePath().resolveSibling(CHECKPOINT_FILE_NAME);
+    }
+
+    /**
+     * Load checkpoint of an interrupted scan from file
+     * @return checkpoint, or null if no scan was interrupted
+     * @throws IOException if error occurs
+     */
+    public ScanCheckpoint loadScanCheckpoint() throws IOException {
+        try {
+            return new ScanCheckpoint(Files.readString(getCheckpointPath(), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Save checkpoint of a scan to file
+     * The file is replaced atomically, so a scan killed while saving leaves the previous checkpoint.
+     * @param scanCheckpoint checkpoint to save
+     * @throws IOException if error occurs
+     */
+    public void saveScanCheckpoint(ScanCheckpoint scanCheckpoint) throws IOException {
+        Path checkpointPath = getCheckpointPath();
+        Path tempPath = checkpointPath.resolveSibling(CHECKPOINT_FILE_NAME + ".tmp");
+        Files.writeString(tempPath, scanCheckpoint.serialize(), StandardCharsets.UTF_8);
+        Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete checkpoint file after a scan is finished
+     * @throws IOException if error occurs
+     */
+    public void deleteScanCheckpoint() throws IOException {
+        Files.deleteIfExists(getCheckpointPath());
+    }
+
     /**
      * Load configuration from file
      * @param databaseConfigPath databaseConfigPath to configuration file
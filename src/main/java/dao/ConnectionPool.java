@@ -0,0 +1,212 @@
+package dao;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight pool of JDBC connections.
+ * Connections are opened when needed up to the pool size and reused after they are closed,
+ * so each thread can use its own connection without opening a new one every time.
+ * A thread waits for a connection if all connections are in use.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private final String jdbcUrl;
+
+    private final String user;
+
+    private final String password;
+
+    private final BlockingQueue<Connection> idleConnections;
+
+    /**
+     * Permits for the connections in use or idle.
+     */
+    private final Semaphore permits;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructor for ConnectionPool.
+     * @param jdbcUrl JDBC URL of the database
+     * @param user username of the database
+     * @param password password of the database
+     * @param poolSize maximum number of connections
+     */
+    public ConnectionPool(String jdbcUrl, String user, String password, int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+        this.idleConnections = new LinkedBlockingQueue<>(poolSize);
+        this.permits = new Semaphore(poolSize, true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("connection pool is closed");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+        try {
+            Connection connection = idleConnections.poll();
+            while (connection != null && !connection.isValid(1)) {
+                closeQuietly(connection);
+                connection = idleConnections.poll();
+            }
+            if (connection == null) {
+                connection = DriverManager.getConnection(jdbcUrl, user, password);
+            }
+            return wrap(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("connections of the pool use the configured user");
+    }
+
+    /**
+     * Wrap the connection so closing it returns it to the pool.
+     * @param connection physical connection
+     * @return connection returned to the pool when closed
+     */
+    private Connection wrap(Connection connection) {
+        boolean[] released = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!released[0]) {
+                                released[0] = true;
+                                release(connection);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            if (released[0]) {
+                                return true;
+                            }
+                        }
+                        case "unwrap" -> {
+                            if (((Class<?>) args[0]).isInstance(connection)) {
+                                return connection;
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                    if (released[0]) {
+                        throw new SQLException("connection is returned to the pool");
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private void release(Connection connection) {
+        try {
+            if (closed || connection.isClosed()) {
+                closeQuietly(connection);
+                return;
+            }
+            // Next user gets the connection in the default state.
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (!idleConnections.offer(connection)) {
+                closeQuietly(connection);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close all idle connections.
+     * Connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("not a wrapper of " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
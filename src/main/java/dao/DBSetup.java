@@ -2,33 +2,59 @@ package dao;
 
 import model.config.DatabaseConfig;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 
-public class DBSetup {
+public class DBSetup implements AutoCloseable {
 
-    private final String DB_URL;
+    private final String JDBC_URL;
     private final String DB_USER;
     private final String DB_PASSWORD;
+    private final int POOL_SIZE;
+
+    private ConnectionPool connectionPool;
 
     public DBSetup(String DB_URL, String DB_USER, String DB_PASSWORD) {
-        this.DB_URL = DB_URL;
-        this.DB_USER = DB_USER;
-        this.DB_PASSWORD = DB_PASSWORD;
+        this(new DatabaseConfig(DB_URL, DB_USER, DB_PASSWORD));
     }
 
     public DBSetup(DatabaseConfig databaseConfig) {
-        this.DB_URL = databaseConfig.getDatabaseUrl();
+        this.JDBC_URL = databaseConfig.getJdbcUrl();
         this.DB_USER = databaseConfig.getDatabaseUser();
         this.DB_PASSWORD = databaseConfig.getDatabasePassword();
+        this.POOL_SIZE = databaseConfig.getPoolSize();
+    }
+
+    /**
+     * Get pooled data source of the database.
+     * The pool is created at the first call and shared by the later calls.
+     * @return data source
+     */
+    public synchronized DataSource getDataSource() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(JDBC_URL, DB_USER, DB_PASSWORD, POOL_SIZE);
+        }
+        return connectionPool;
     }
 
+    /**
+     * Get a connection from the pool.
+     * Closing the connection returns it to the pool.
+     * @return connection to the database
+     * @throws SQLException if the connection cannot be opened
+     */
     public Connection getConnection() throws SQLException {
-        return java.sql.DriverManager.getConnection(
-                "jdbc:mysql://" +
-                DB_URL +
-                "/duptest?serverTimezone=UTC&useSSL=false",
-                DB_USER,
-                DB_PASSWORD);
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * Close the connections of the pool.
+     */
+    @Override
+    public synchronized void close() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
     }
 }
@@ -6,6 +6,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -13,6 +14,12 @@ public class DirMetadataDao {
 
     private final Connection connection;
 
+    private final BatchWriter batchWriter;
+
+    private final String upsertQuery;
+
+    private final String scanUpsertQuery;
+
     /**
      * Table name for FileMetadata.
      */
@@ -23,7 +30,22 @@ public class DirMetadataDao {
      * @param connection connection to the database
      */
     public DirMetadataDao(Connection connection) {
+        this(connection, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor for DirMetadataDao.
+     * @param connection connection to the database
+     * @param batchSize number of rows committed at once by the batch methods
+     */
+    public DirMetadataDao(Connection connection, int batchSize) {
         this.connection = connection;
+        this.batchWriter = new BatchWriter(connection, batchSize);
+        SqlDialect dialect = SqlDialect.of(connection);
+        this.upsertQuery = dialect.upsertQuery(
+                DIR_TB_NAME, "path_hash", List.of("path", "last_modified", "content_count", "path_hash", "parent_dir"));
+        this.scanUpsertQuery = dialect.upsertQuery(
+                DIR_TB_NAME, "path_hash", List.of("path", "last_modified", "content_count", "path_hash", "parent_dir", "scan_id"));
     }
 
     /**
@@ -31,17 +53,61 @@ public class DirMetadataDao {
      * @param dirMetadata metadata to insert
      */
     public void insert(DirMetadata dirMetadata) {
-        String insertQuery = "INSERT INTO " + DIR_TB_NAME + " (path, last_modified, content_count) VALUES (?, ?, ?)";
+        String insertQuery = "INSERT INTO " + DIR_TB_NAME + " (path, last_modified, content_count, path_hash, parent_dir) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(insertQuery)) {
-            pstmt.setString(1, dirMetadata.path());
-            pstmt.setLong(2, dirMetadata.lastModified());
-            pstmt.setLong(3, dirMetadata.contentCount());
+            setColumns(pstmt, dirMetadata);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Insert all metadata into the database with batches.
+     * @param dirMetadataList metadata to insert
+     */
+    public void insertAll(Collection<DirMetadata> dirMetadataList) {
+        String insertQuery = "INSERT INTO " + DIR_TB_NAME + " (path, last_modified, content_count, path_hash, parent_dir) VALUES (?, ?, ?, ?, ?)";
+        batchWriter.write(insertQuery, dirMetadataList, (pstmt, dirMetadata) -> {
+            setColumns(pstmt, dirMetadata);
+        });
+    }
+
+    /**
+     * Insert metadata into the database, or update the metadata if the path is already in the database.
+     * @param dirMetadata metadata to insert or update
+     */
+    public void upsert(DirMetadata dirMetadata) {
+        try (PreparedStatement pstmt = connection.prepareStatement(upsertQuery)) {
+            setColumns(pstmt, dirMetadata);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Insert the metadata not in the database, and update the metadata already in the database, with batches.
+     * @param dirMetadataList metadata to insert or update
+     */
+    public void upsertAll(Collection<DirMetadata> dirMetadataList) {
+        batchWriter.write(upsertQuery, dirMetadataList, (pstmt, dirMetadata) -> {
+            setColumns(pstmt, dirMetadata);
+        });
+    }
+
+    /**
+     * Insert or update the metadata with batches, and stamp the rows with the id of the scan.
+     * @param dirMetadataList metadata to insert or update
+     * @param scanId id of the scan writing the metadata
+     */
+    public void upsertAll(Collection<DirMetadata> dirMetadataList, long scanId) {
+        batchWriter.write(scanUpsertQuery, dirMetadataList, (pstmt, dirMetadata) -> {
+            setColumns(pstmt, dirMetadata);
+            pstmt.setLong(6, scanId);
+        });
+    }
+
     /**
      * Get all directory path list from the database.
      * @return list of file path
@@ -88,10 +154,10 @@ public class DirMetadataDao {
      * @return list of directory metadata
      */
     public List<DirMetadata> searchByPath(String path) {
-        String selectQuery = "SELECT * FROM " + DIR_TB_NAME + " WHERE path = ?";
+        String selectQuery = "SELECT * FROM " + DIR_TB_NAME + " WHERE " + PathColumns.PATH_CONDITION;
         List<DirMetadata> result = new LinkedList<>();
         try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
-            pstmt.setString(1, path);
+            PathColumns.setPath(pstmt, 1, path);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 result.add(new DirMetadata(
@@ -112,28 +178,40 @@ public class DirMetadataDao {
      * @param dirMetadata new directory metadata
      */
     public void updateByPath(String path, DirMetadata dirMetadata) {
-        String updateQuery = "UPDATE " + DIR_TB_NAME + " SET path = ?, last_modified = ?, content_count = ? WHERE path = ?";
+        String updateQuery = "UPDATE " + DIR_TB_NAME
+                + " SET path = ?, last_modified = ?, content_count = ?, path_hash = ?, parent_dir = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
-            pstmt.setString(1, dirMetadata.path());
-            pstmt.setLong(2, dirMetadata.lastModified());
-            pstmt.setLong(3, dirMetadata.contentCount());
-            pstmt.setString(4, path);
+            setColumns(pstmt, dirMetadata);
+            PathColumns.setPath(pstmt, 6, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Update all directory metadata by their path with batches.
+     * @param dirMetadataList new directory metadata
+     */
+    public void updateAll(Collection<DirMetadata> dirMetadataList) {
+        String updateQuery = "UPDATE " + DIR_TB_NAME + " SET last_modified = ?, content_count = ? WHERE " + PathColumns.PATH_CONDITION;
+        batchWriter.write(updateQuery, dirMetadataList, (pstmt, dirMetadata) -> {
+            pstmt.setLong(1, dirMetadata.lastModified());
+            pstmt.setLong(2, dirMetadata.contentCount());
+            PathColumns.setPath(pstmt, 3, dirMetadata.path());
+        });
+    }
+
     /**
      * Update content count of the directory by path.
      * @param path path of the directory
      * @param currentContentCount new content count of the directory
      */
     public void updateContentCount(String path, long currentContentCount) {
-        String updateQuery = "UPDATE " + DIR_TB_NAME + " SET content_count = ? WHERE path = ?";
+        String updateQuery = "UPDATE " + DIR_TB_NAME + " SET content_count = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
             pstmt.setLong(1, currentContentCount);
-            pstmt.setString(2, path);
+            PathColumns.setPath(pstmt, 2, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -146,13 +224,64 @@ public class DirMetadataDao {
      * @param currentLastModified new last modified time of the directory
      */
     public void updateLastModified(String path, long currentLastModified) {
-        String updateQuery = "UPDATE " + DIR_TB_NAME + " SET last_modified = ? WHERE path = ?";
+        String updateQuery = "UPDATE " + DIR_TB_NAME + " SET last_modified = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
             pstmt.setLong(1, currentLastModified);
-            pstmt.setString(2, path);
+            PathColumns.setPath(pstmt, 2, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Delete metadata of the path and of all paths under it.
+     * @param path path of a removed file or directory
+     * @return number of deleted rows
+     */
+    public int deleteTree(String path) {
+        String deleteQuery = "DELETE FROM " + DIR_TB_NAME
+                + " WHERE (" + PathColumns.PATH_CONDITION + ") OR " + PathColumns.TREE_CONDITION;
+        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+            PathColumns.setPath(pstmt, 1, path);
+            PathColumns.setTree(pstmt, 3, path);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Delete metadata of the directories under the root not seen by the scan.
+     * Every directory under the root must be stamped by the scan, e.g. by a full scan.
+     * @param rootPath root path of the scan
+     * @param scanId id of the scan
+     * @return number of deleted rows
+     */
+    public int deleteNotScanned(String rootPath, long scanId) {
+        String deleteQuery = "DELETE FROM " + DIR_TB_NAME
+                + " WHERE " + PathColumns.TREE_CONDITION + " AND (scan_id IS NULL OR scan_id < ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+            PathColumns.setTree(pstmt, 1, rootPath);
+            pstmt.setLong(3, scanId);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Set the path, last modified time, content count, path hash and parent directory parameters in this order.
+     * @param pstmt statement of the query
+     * @param dirMetadata metadata to write
+     */
+    private static void setColumns(PreparedStatement pstmt, DirMetadata dirMetadata) throws SQLException {
+        pstmt.setString(1, dirMetadata.path());
+        pstmt.setLong(2, dirMetadata.lastModified());
+        pstmt.setLong(3, dirMetadata.contentCount());
+        pstmt.setBytes(4, PathColumns.pathHash(dirMetadata.path()));
+        pstmt.setString(5, PathColumns.parentDir(dirMetadata.path()));
+    }
 }
@@ -1,13 +1,21 @@
 package dao;
 
+import model.hasher.Hash;
+import model.hasher.Hashers;
+import model.hasher.Md5Hasher;
+import model.metadata.DuplicateGroup;
 import model.metadata.FileMetadata;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * DTO class for FileMetadata using SQL database.
@@ -15,17 +23,84 @@ import java.util.List;
 public class FileMetadataDao {
     private final Connection connection;
 
+    private final BatchWriter batchWriter;
+
+    private final SqlDialect dialect;
+
+    private final String upsertQuery;
+
+    private final String scanUpsertQuery;
+
+    private final String hashAlgorithm;
+
     /**
      * Table name for FileMetadata.
      */
     public static final String FILE_TB_NAME = "file_metadata";
 
+    /**
+     * Algorithm of the hashes stored before the algorithm column was added.
+     */
+    private static final String LEGACY_HASH_ALGORITHM = Md5Hasher.ALGORITHM;
+
+    /**
+     * Columns written by the insert and upsert queries, in the order of the parameters.
+     */
+    private static final List<String> COLUMNS = List.of(
+            "path", "last_modified", "size", "hash", "partial_hash", "hash_algorithm", "file_key", "path_hash", "parent_dir", "reflink_of");
+
+    private static final String INSERT_QUERY = "INSERT INTO " + FILE_TB_NAME + " (" + String.join(", ", COLUMNS) + ")"
+            + " VALUES (" + String.join(", ", Collections.nCopies(COLUMNS.size(), "?")) + ")";
+
+    /**
+     * Maximum number of values in one IN list.
+     */
+    private static final int IN_LIST_SIZE = 1_000;
+
+    /**
+     * Query of the size, hash and reclaimable bytes of each duplicate group.
+     * Hard links of one physical file, and reflinks sharing its data, are counted once.
+     */
+    private static final String DUPLICATE_KEY_QUERY = duplicateKeyQuery("");
+
     /**
      * Constructor for FileMetadataDao.
      * @param connection connection to the database
      */
     public FileMetadataDao(Connection connection) {
+        this(connection, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor for FileMetadataDao.
+     * @param connection connection to the database
+     * @param batchSize number of rows committed at once by the batch methods
+     */
+    public FileMetadataDao(Connection connection, int batchSize) {
+        this(connection, batchSize, Hashers.DEFAULT_ALGORITHM);
+    }
+
+    /**
+     * Constructor for FileMetadataDao.
+     * @param connection connection to the database
+     * @param batchSize number of rows committed at once by the batch methods
+     * @param hashAlgorithm id of the algorithm of the hashes written and searched by this DAO
+     */
+    public FileMetadataDao(Connection connection, int batchSize, String hashAlgorithm) {
         this.connection = connection;
+        this.batchWriter = new BatchWriter(connection, batchSize);
+        this.dialect = SqlDialect.of(connection);
+        this.upsertQuery = dialect.upsertQuery(FILE_TB_NAME, "path_hash", COLUMNS);
+        this.scanUpsertQuery = dialect.upsertQuery(FILE_TB_NAME, "path_hash", withScanId(COLUMNS));
+        this.hashAlgorithm = Hashers.normalize(hashAlgorithm);
+    }
+
+    /**
+     * Get id of the algorithm of the hashes written and searched by this DAO.
+     * @return algorithm id
+     */
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
     }
 
     /**
@@ -33,18 +108,72 @@ public class FileMetadataDao {
      * @param FileMetadata metadata to insert
      */
     public void insert(FileMetadata FileMetadata) {
-        String insertQuery = "INSERT INTO " + FILE_TB_NAME + " (path, last_modified, size, hash) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(insertQuery)) {
-            pstmt.setString(1, FileMetadata.path());
-            pstmt.setLong(2, FileMetadata.lastModified());
-            pstmt.setLong(3, FileMetadata.size());
-            pstmt.setString(4, FileMetadata.hash());
+        try (PreparedStatement pstmt = connection.prepareStatement(INSERT_QUERY)) {
+            setColumns(pstmt, FileMetadata);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Insert all metadata into the database with batches.
+     * @param metadataList metadata to insert
+     */
+    public void insertAll(Collection<FileMetadata> metadataList) {
+        batchWriter.write(INSERT_QUERY, metadataList, (pstmt, metadata) -> {
+            setColumns(pstmt, metadata);
+        });
+    }
+
+    /**
+     * Insert metadata into the database, or update the metadata if the path is already in the database.
+     * @param fileMetadata metadata to insert or update
+     */
+    public void upsert(FileMetadata fileMetadata) {
+        try (PreparedStatement pstmt = connection.prepareStatement(upsertQuery)) {
+            setColumns(pstmt, fileMetadata);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Insert the metadata not in the database, and update the metadata already in the database, with batches.
+     * @param metadataList metadata to insert or update
+     */
+    public void upsertAll(Collection<FileMetadata> metadataList) {
+        batchWriter.write(upsertQuery, metadataList, (pstmt, metadata) -> {
+            setColumns(pstmt, metadata);
+        });
+    }
+
+    /**
+     * Insert or update the metadata with batches, and stamp the rows with the id of the scan.
+     * @param metadataList metadata to insert or update
+     * @param scanId id of the scan writing the metadata
+     */
+    public void upsertAll(Collection<FileMetadata> metadataList, long scanId) {
+        batchWriter.write(scanUpsertQuery, metadataList, (pstmt, metadata) -> {
+            setColumns(pstmt, metadata);
+            pstmt.setLong(11, scanId);
+        });
+    }
+
+    /**
+     * Stamp the rows of unchanged files with the id of the scan that found them, with batches.
+     * @param paths paths of the files
+     * @param scanId id of the scan
+     */
+    public void markScanned(Collection<String> paths, long scanId) {
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET scan_id = ? WHERE " + PathColumns.PATH_CONDITION;
+        batchWriter.write(updateQuery, paths, (pstmt, path) -> {
+            pstmt.setLong(1, scanId);
+            PathColumns.setPath(pstmt, 2, path);
+        });
+    }
+
     /**
      * Get all file path list from the database.
      * @return list of file path
@@ -73,12 +202,7 @@ public class FileMetadataDao {
         try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                result.add(new FileMetadata(
-                        rs.getString("path"),
-                        rs.getLong("last_modified"),
-                        rs.getLong("size"),
-                        rs.getString("hash")
-                ));
+                result.add(readFileMetadata(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -86,24 +210,55 @@ public class FileMetadataDao {
         return result;
     }
 
+    /**
+     * Read all metadata from the database one by one without keeping the result in memory.
+     * Rows are read with a forward-only cursor, so the consumer must not use this DAO.
+     * @param consumer consumer of each metadata
+     */
+    public void scanAll(Consumer<FileMetadata> consumer) {
+        String selectQuery = "SELECT path, last_modified, size, hash, partial_hash, file_key, reflink_of FROM " + FILE_TB_NAME;
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                selectQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(dialect.streamingFetchSize());
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                consumer.accept(readFileMetadata(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Count all metadata in the database.
+     * @return number of metadata
+     */
+    public long count() {
+        String selectQuery = "SELECT COUNT(*) FROM " + FILE_TB_NAME;
+        try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
     /**
      * Search metadata from the database by file path.
      * @param path file path to search
      * @return list of metadata
      */
     public List<FileMetadata> searchByPath(String path) {
-        String selectQuery = "SELECT * FROM " + FILE_TB_NAME + " WHERE path = ?";
+        String selectQuery = "SELECT * FROM " + FILE_TB_NAME + " WHERE " + PathColumns.PATH_CONDITION;
         List<FileMetadata> result = new LinkedList<>();
         try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
-            pstmt.setString(1, path);
+            PathColumns.setPath(pstmt, 1, path);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                result.add(new FileMetadata(
-                        rs.getString("path"),
-                        rs.getLong("last_modified"),
-                        rs.getLong("size"),
-                        rs.getString("hash")
-                ));
+                result.add(readFileMetadata(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -113,57 +268,380 @@ public class FileMetadataDao {
 
     /**
      * Search metadata from the database by hash.
+     * Only hashes made with the algorithm of this DAO are searched.
      * @param hash hash to search
      * @return list of metadata
      */
-    public List<FileMetadata> searchByHash(String hash) {
-        String selectQuery = "SELECT * FROM " + FILE_TB_NAME + " WHERE hash = ?";
+    public List<FileMetadata> searchByHash(Hash hash) {
+        String selectQuery = "SELECT * FROM " + FILE_TB_NAME + " WHERE hash = ? AND COALESCE(hash_algorithm, ?) = ?";
+        List<FileMetadata> result = new LinkedList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
+            pstmt.setBytes(1, toBytes(hash));
+            pstmt.setString(2, LEGACY_HASH_ALGORITHM);
+            pstmt.setString(3, hashAlgorithm);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                result.add(readFileMetadata(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    /**
+     * Find all groups of files with the same size and hash in one query.
+     * Only hashes made with the algorithm of this DAO are grouped,
+     * and groups whose files are all hard links of one physical file are not duplicates.
+     * Groups are sorted by reclaimable bytes in descending order.
+     * @return list of duplicate groups
+     */
+    public List<DuplicateGroup> findDuplicateGroups() {
+        List<DuplicateGroup> result = new LinkedList<>();
+        findDuplicateGroups(result::add);
+        return result;
+    }
+
+    /**
+     * Find all groups of files with the same size and hash in one query.
+     * Rows are read with a forward-only cursor,
+     * so only one group is kept in memory at once and the consumer must not use this DAO.
+     * Groups are sorted by reclaimable bytes in descending order.
+     * @param consumer consumer of each duplicate group
+     */
+    public void findDuplicateGroups(Consumer<DuplicateGroup> consumer) {
+        readDuplicateGroups(duplicateGroupQuery(""), null, consumer);
+    }
+
+    /**
+     * Find the groups of files with the same size and hash that come after the given group,
+     * in descending order of size and then of hash.
+     * The key of the last group is the start of the next page,
+     * so the pages are not shifted when the groups before them are resolved.
+     * @param after last group of the previous page, or null for the first page
+     * @param limit maximum number of groups
+     * @return list of duplicate groups in the page
+     */
+    public List<DuplicateGroup> findDuplicateGroupsAfter(DuplicateGroup after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        String condition = after == null ? "" : " AND (size < ? OR (size = ? AND hash < ?))";
+        String selectQuery = "SELECT f.path, f.last_modified, f.size, f.hash, f.partial_hash, f.file_key, f.reflink_of" +
+                " FROM " + FILE_TB_NAME + " f JOIN (" +
+                duplicateKeyQuery(condition) + " ORDER BY size DESC, hash DESC LIMIT " + limit +
+                ") d ON f.size = d.size AND f.hash = d.hash" +
+                " ORDER BY f.size DESC, f.hash DESC, f.path";
+        List<DuplicateGroup> result = new LinkedList<>();
+        readDuplicateGroups(selectQuery, after, result::add);
+        return result;
+    }
+
+    /**
+     * Find a page of the groups of files with the same size and hash.
+     * Groups are sorted by reclaimable bytes in descending order,
+     * so the first pages have the groups freeing the most space.
+     * @param offset number of groups to skip
+     * @param limit maximum number of groups
+     * @return list of duplicate groups in the page
+     */
+    public List<DuplicateGroup> findDuplicateGroups(long offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset must not be negative and limit must be positive");
+        }
+        List<DuplicateGroup> result = new LinkedList<>();
+        readDuplicateGroups(duplicateGroupQuery(" LIMIT " + limit + " OFFSET " + offset), null, result::add);
+        return result;
+    }
+
+    /**
+     * Count groups of files with the same size and hash.
+     * @return number of duplicate groups
+     */
+    public long countDuplicateGroups() {
+        return aggregateDuplicateKeys("COUNT(*)", "", List.of());
+    }
+
+    /**
+     * Count groups of files with the same size and hash among the given sizes.
+     * @param sizes sizes of the groups to count
+     * @return number of duplicate groups with the sizes
+     */
+    public long countDuplicateGroups(Collection<Long> sizes) {
+        long result = 0;
+        for (List<Long> chunk : chunk(sizes)) {
+            result += aggregateDuplicateKeys("COUNT(*)", " AND " + sizeInList(chunk.size()), chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Sum the bytes freed by keeping only one physical file of each duplicate group.
+     * @return reclaimable bytes of all duplicate groups
+     */
+    public long sumReclaimableBytes() {
+        return aggregateDuplicateKeys("COALESCE(SUM(reclaimable), 0)", "", List.of());
+    }
+
+    /**
+     * Sum the bytes freed by keeping only one physical file of each duplicate group among the given sizes.
+     * @param sizes sizes of the groups to sum
+     * @return reclaimable bytes of the duplicate groups with the sizes
+     */
+    public long sumReclaimableBytes(Collection<Long> sizes) {
+        long result = 0;
+        for (List<Long> chunk : chunk(sizes)) {
+            result += aggregateDuplicateKeys("COALESCE(SUM(reclaimable), 0)", " AND " + sizeInList(chunk.size()), chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Aggregate the duplicate keys matching the condition.
+     * @param aggregate aggregate expression over the duplicate keys
+     * @param condition condition on the rows appended with AND, or an empty string
+     * @param sizes sizes set to the parameters of the condition
+     * @return value of the aggregate
+     */
+    private long aggregateDuplicateKeys(String aggregate, String condition, List<Long> sizes) {
+        String selectQuery = "SELECT " + aggregate + " FROM (" + duplicateKeyQuery(condition) + ") d";
+        try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
+            pstmt.setString(1, LEGACY_HASH_ALGORITHM);
+            pstmt.setString(2, hashAlgorithm);
+            for (int i = 0; i < sizes.size(); i++) {
+                pstmt.setLong(3 + i, sizes.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Make the query of the size, hash and reclaimable bytes of each duplicate group.
+     * The hash algorithms are the first two parameters.
+     * @param condition condition on the rows appended with AND, or an empty string
+     * @return query of the duplicate keys
+     */
+    private static String duplicateKeyQuery(String condition) {
+        return "SELECT size, hash," +
+                " size * (COUNT(DISTINCT COALESCE(reflink_of, file_key, path)) - 1) AS reclaimable" +
+                " FROM " + FILE_TB_NAME +
+                " WHERE hash IS NOT NULL AND COALESCE(hash_algorithm, ?) = ?" + condition +
+                " GROUP BY size, hash HAVING COUNT(DISTINCT COALESCE(reflink_of, file_key, path)) > 1";
+    }
+
+    private static String duplicateGroupQuery(String pageClause) {
+        // Rows of a group are consecutive, because groups are ordered by a unique key after reclaimable bytes.
+        return "SELECT f.path, f.last_modified, f.size, f.hash, f.partial_hash, f.file_key, f.reflink_of" +
+                " FROM " + FILE_TB_NAME + " f JOIN (" +
+                DUPLICATE_KEY_QUERY + " ORDER BY reclaimable DESC, size DESC, hash" + pageClause +
+                ") d ON f.size = d.size AND f.hash = d.hash" +
+                " ORDER BY d.reclaimable DESC, f.size DESC, f.hash, f.path";
+    }
+
+    /**
+     * Read duplicate groups from the rows ordered by group.
+     * @param selectQuery query of the rows, with the hash algorithms as the first two parameters
+     * @param after group whose size and hash are the next three parameters, or null if the query has no more
+     * @param consumer consumer of each duplicate group
+     */
+    private void readDuplicateGroups(String selectQuery, DuplicateGroup after, Consumer<DuplicateGroup> consumer) {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                selectQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(dialect.streamingFetchSize());
+            pstmt.setString(1, LEGACY_HASH_ALGORITHM);
+            pstmt.setString(2, hashAlgorithm);
+            if (after != null) {
+                pstmt.setLong(3, after.size());
+                pstmt.setLong(4, after.size());
+                pstmt.setBytes(5, toBytes(after.hash()));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            List<FileMetadata> members = new ArrayList<>();
+            while (rs.next()) {
+                FileMetadata metadata = readFileMetadata(rs);
+                if (!members.isEmpty() && !isSameGroup(members.get(0), metadata)) {
+                    consumer.accept(new DuplicateGroup(members.get(0).hash(), members.get(0).size(), members));
+                    members.clear();
+                }
+                members.add(metadata);
+            }
+            if (!members.isEmpty()) {
+                consumer.accept(new DuplicateGroup(members.get(0).hash(), members.get(0).size(), members));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean isSameGroup(FileMetadata first, FileMetadata metadata) {
+        return first.size() == metadata.size() && first.hash().equals(metadata.hash());
+    }
+
+    /**
+     * Search metadata from the database by file size.
+     * @param size file size to search
+     * @return list of metadata
+     */
+    public List<FileMetadata> searchBySize(long size) {
+        String selectQuery = "SELECT * FROM " + FILE_TB_NAME + " WHERE size = ?";
         List<FileMetadata> result = new LinkedList<>();
         try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
-            pstmt.setString(1, hash);
+            pstmt.setLong(1, size);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                result.add(readFileMetadata(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return result;
+    }
+
+    /**
+     * Get sizes shared by more than one physical file where at least one of the files is not hashed yet.
+     * Only files with these sizes can be duplicates that are not found yet.
+     * Hard links of the same file are counted once.
+     * @return list of colliding sizes
+     */
+    public List<Long> getCollidingSizes() {
+        List<Long> result = new LinkedList<>();
+        readCollidingSizes("", List.of(), result);
+        return result;
+    }
+
+    /**
+     * Get colliding sizes among the given sizes, e.g. the sizes of the files changed since the last check.
+     * @param sizes sizes to check
+     * @return list of colliding sizes
+     */
+    public List<Long> getCollidingSizes(Collection<Long> sizes) {
+        List<Long> result = new LinkedList<>();
+        for (List<Long> chunk : chunk(sizes)) {
+            readCollidingSizes(" WHERE " + sizeInList(chunk.size()), chunk, result);
+        }
+        return result;
+    }
+
+    /**
+     * Read the colliding sizes of the rows matching the condition.
+     * @param condition WHERE clause on the rows, or an empty string
+     * @param sizes sizes set to the parameters of the condition
+     * @param result list to add the colliding sizes to
+     */
+    private void readCollidingSizes(String condition, List<Long> sizes, List<Long> result) {
+        String selectQuery = "SELECT size FROM " + FILE_TB_NAME + condition +
+                " GROUP BY size HAVING COUNT(DISTINCT COALESCE(file_key, path)) > 1 AND COUNT(hash) < COUNT(*)";
+        try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
+            for (int i = 0; i < sizes.size(); i++) {
+                pstmt.setLong(1 + i, sizes.get(i));
+            }
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                result.add(new FileMetadata(
-                        rs.getString("path"),
-                        rs.getLong("last_modified"),
-                        rs.getLong("size"),
-                        rs.getString("hash")
-                ));
+                result.add(rs.getLong("size"));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+    }
+
+    /**
+     * Make the condition on the size of the rows.
+     * @param count number of sizes set to the parameters
+     * @return condition on the size
+     */
+    private static String sizeInList(int count) {
+        return "size IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * Split the sizes into chunks small enough for the parameters of one query.
+     * @param sizes sizes to split
+     * @return chunks of the sizes
+     */
+    private static List<List<Long>> chunk(Collection<Long> sizes) {
+        List<Long> list = new ArrayList<>(sizes);
+        List<List<Long>> result = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += IN_LIST_SIZE) {
+            result.add(list.subList(i, Math.min(i + IN_LIST_SIZE, list.size())));
+        }
         return result;
     }
 
+    /**
+     * Clear hashes made with another algorithm than the algorithm of this DAO.
+     * Cleared files are hashed again lazily, only when their size collides with another file.
+     * @return number of files whose hashes are cleared
+     */
+    public int clearOtherAlgorithmHashes() {
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET hash = NULL, partial_hash = NULL, hash_algorithm = ?" +
+                " WHERE COALESCE(hash_algorithm, ?) <> ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
+            pstmt.setString(1, hashAlgorithm);
+            pstmt.setString(2, LEGACY_HASH_ALGORITHM);
+            pstmt.setString(3, hashAlgorithm);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
     /**
      * Update metadata by file path.
      * @param path file path to update
      * @param newMetadata new metadata
      */
     public void updateByPath(String path, FileMetadata newMetadata) {
-        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET last_modified = ?, size = ?, hash = ? WHERE path = ?";
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET last_modified = ?, size = ?, hash = ?, partial_hash = ?, hash_algorithm = ?, file_key = ?, reflink_of = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
             pstmt.setLong(1, newMetadata.lastModified());
             pstmt.setLong(2, newMetadata.size());
-            pstmt.setString(3, newMetadata.hash());
-            pstmt.setString(4, path);
+            pstmt.setBytes(3, toBytes(newMetadata.hash()));
+            pstmt.setBytes(4, toBytes(newMetadata.partialHash()));
+            pstmt.setString(5, hashAlgorithm);
+            pstmt.setString(6, newMetadata.fileKey());
+            pstmt.setString(7, newMetadata.reflinkOf());
+            PathColumns.setPath(pstmt, 8, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Update all metadata by their file path with batches.
+     * @param metadataList new metadata
+     */
+    public void updateAll(Collection<FileMetadata> metadataList) {
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET last_modified = ?, size = ?, hash = ?, partial_hash = ?, hash_algorithm = ?, file_key = ?, reflink_of = ? WHERE " + PathColumns.PATH_CONDITION;
+        batchWriter.write(updateQuery, metadataList, (pstmt, metadata) -> {
+            pstmt.setLong(1, metadata.lastModified());
+            pstmt.setLong(2, metadata.size());
+            pstmt.setBytes(3, toBytes(metadata.hash()));
+            pstmt.setBytes(4, toBytes(metadata.partialHash()));
+            pstmt.setString(5, hashAlgorithm);
+            pstmt.setString(6, metadata.fileKey());
+            pstmt.setString(7, metadata.reflinkOf());
+            PathColumns.setPath(pstmt, 8, metadata.path());
+        });
+    }
+
     /**
      * Update last modified time of the metadata.
      * @param path file path to update
      * @param newLastModified new last modified time
      */
     public void updateLastModified(String path, long newLastModified) {
-        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET last_modified = ? WHERE path = ?";
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET last_modified = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
             pstmt.setLong(1, newLastModified);
-            pstmt.setString(2, path);
+            PathColumns.setPath(pstmt, 2, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -176,10 +654,10 @@ public class FileMetadataDao {
      * @param newSize new size
      */
     public void updateSize(String path, long newSize) {
-        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET size = ? WHERE path = ?";
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET size = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)){
             pstmt.setLong(1, newSize);
-            pstmt.setString(2, path);
+            PathColumns.setPath(pstmt, 2, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -191,14 +669,155 @@ public class FileMetadataDao {
      * @param path file path to update
      * @param newHash new hash
      */
-    public void updateHash(String path, String newHash) {
-        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET hash = ? WHERE path = ?";
+    public void updateHash(String path, Hash newHash) {
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET hash = ?, hash_algorithm = ? WHERE " + PathColumns.PATH_CONDITION;
         try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)){
-            pstmt.setString(1, newHash);
-            pstmt.setString(2, path);
+            pstmt.setBytes(1, toBytes(newHash));
+            pstmt.setString(2, hashAlgorithm);
+            PathColumns.setPath(pstmt, 3, path);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Update partial hash value in the metadata.
+     * @param path file path to update
+     * @param newPartialHash new partial hash
+     */
+    public void updatePartialHash(String path, Hash newPartialHash) {
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET partial_hash = ?, hash_algorithm = ? WHERE " + PathColumns.PATH_CONDITION;
+        try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)){
+            pstmt.setBytes(1, toBytes(newPartialHash));
+            pstmt.setString(2, hashAlgorithm);
+            PathColumns.setPath(pstmt, 3, path);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Update partial hash values of all metadata by their file path with batches.
+     * @param metadataList metadata with new partial hash
+     */
+    public void updatePartialHashAll(Collection<FileMetadata> metadataList) {
+        String updateQuery = "UPDATE " + FILE_TB_NAME + " SET partial_hash = ?, hash_algorithm = ? WHERE " + PathColumns.PATH_CONDITION;
+        batchWriter.write(updateQuery, metadataList, (pstmt, metadata) -> {
+            pstmt.setBytes(1, toBytes(metadata.partialHash()));
+            pstmt.setString(2, hashAlgorithm);
+            PathColumns.setPath(pstmt, 3, metadata.path());
+        });
+    }
+
+    /**
+     * Delete metadata of all files by their file path with batches.
+     * @param paths file paths to delete
+     */
+    public void deleteAllByPath(Collection<String> paths) {
+        String deleteQuery = "DELETE FROM " + FILE_TB_NAME + " WHERE " + PathColumns.PATH_CONDITION;
+        batchWriter.write(deleteQuery, paths, (pstmt, path) -> PathColumns.setPath(pstmt, 1, path));
+    }
+
+    /**
+     * Delete metadata of the path and of all paths under it.
+     * @param path path of a removed file or directory
+     * @return number of deleted rows
+     */
+    public int deleteTree(String path) {
+        String deleteQuery = "DELETE FROM " + FILE_TB_NAME
+                + " WHERE (" + PathColumns.PATH_CONDITION + ") OR " + PathColumns.TREE_CONDITION;
+        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+            PathColumns.setPath(pstmt, 1, path);
+            PathColumns.setTree(pstmt, 3, path);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Delete metadata of the files under the root not seen by the scan.
+     * Every file under the root must be stamped by the scan, e.g. by a full scan.
+     * @param rootPath root path of the scan
+     * @param scanId id of the scan
+     * @return number of deleted rows
+     */
+    public int deleteNotScanned(String rootPath, long scanId) {
+        String deleteQuery = "DELETE FROM " + FILE_TB_NAME
+                + " WHERE " + PathColumns.TREE_CONDITION + " AND (scan_id IS NULL OR scan_id < ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+            PathColumns.setTree(pstmt, 1, rootPath);
+            pstmt.setLong(3, scanId);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Delete metadata of the files directly in the directories not seen by the scan.
+     * Every file directly in the directories must be stamped by the scan, but files in their subdirectories are kept.
+     * @param dirPaths paths of the directories
+     * @param scanId id of the scan
+     * @return number of deleted rows
+     */
+    public int deleteNotScannedChildren(Collection<String> dirPaths, long scanId) {
+        String deleteQuery = "DELETE FROM " + FILE_TB_NAME
+                + " WHERE parent_dir = ? AND (scan_id IS NULL OR scan_id < ?)";
+        int deletedCount = 0;
+        try (PreparedStatement pstmt = connection.prepareStatement(deleteQuery)) {
+            for (String dirPath : dirPaths) {
+                pstmt.setString(1, dirPath);
+                pstmt.setLong(2, scanId);
+                deletedCount += pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Set the parameters of the insert and upsert queries in the order of {@link #COLUMNS}.
+     * @param pstmt statement of the query
+     * @param metadata metadata to write
+     */
+    private void setColumns(PreparedStatement pstmt, FileMetadata metadata) throws SQLException {
+        pstmt.setString(1, metadata.path());
+        pstmt.setLong(2, metadata.lastModified());
+        pstmt.setLong(3, metadata.size());
+        pstmt.setBytes(4, toBytes(metadata.hash()));
+        pstmt.setBytes(5, toBytes(metadata.partialHash()));
+        pstmt.setString(6, hashAlgorithm);
+        pstmt.setString(7, metadata.fileKey());
+        pstmt.setBytes(8, PathColumns.pathHash(metadata.path()));
+        pstmt.setString(9, PathColumns.parentDir(metadata.path()));
+        pstmt.setString(10, metadata.reflinkOf());
+    }
+
+    private static List<String> withScanId(List<String> columns) {
+        List<String> result = new ArrayList<>(columns);
+        result.add("scan_id");
+        return result;
+    }
+
+    private static FileMetadata readFileMetadata(ResultSet rs) throws SQLException {
+        return new FileMetadata(
+                rs.getString("path"),
+                rs.getLong("last_modified"),
+                rs.getLong("size"),
+                Hash.ofNullable(rs.getBytes("hash")),
+                Hash.ofNullable(rs.getBytes("partial_hash")),
+                rs.getString("file_key"),
+                rs.getString("reflink_of")
+        );
+    }
+
+    private static byte[] toBytes(Hash hash) {
+        return hash == null ? null : hash.toBytes();
+    }
 }
@@ -0,0 +1,78 @@
+package dao;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Values of the columns derived from the path of a row, and the conditions using them.
+ * The path hash has a fixed small size, so its unique index is much smaller than an index on the path itself.
+ * The path column is not indexed: rows are looked up by path hash, and trees of rows by parent directory.
+ */
+final class PathColumns {
+
+    /**
+     * Condition matching the row of a path, with the parameters set by {@link #setPath}.
+     * The path is compared too, so a collision of the path hash cannot match another row.
+     */
+    static final String PATH_CONDITION = "path_hash = ? AND path = ?";
+
+    /**
+     * Condition matching the rows under a directory, with the parameters set by {@link #setTree}.
+     */
+    static final String TREE_CONDITION = "(parent_dir = ? OR parent_dir LIKE ? ESCAPE '!')";
+
+    private PathColumns() {
+    }
+
+    /**
+     * Make the hash of the path stored in the path_hash column.
+     * @param path path of the row
+     * @return SHA-256 digest of the path in UTF-8
+     */
+    static byte[] pathHash(String path) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(path.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the directory of the path stored in the parent_dir column.
+     * @param path path of the row
+     * @return path of the parent directory, or null if the path has no parent
+     */
+    static String parentDir(String path) {
+        Path parent = Path.of(path).getParent();
+        return parent == null ? null : parent.toString();
+    }
+
+    /**
+     * Set the parameters of {@link #PATH_CONDITION}.
+     * @param pstmt statement of the query
+     * @param index index of the first parameter
+     * @param path path of the row
+     */
+    static void setPath(PreparedStatement pstmt, int index, String path) throws SQLException {
+        pstmt.setBytes(index, pathHash(path));
+        pstmt.setString(index + 1, path);
+    }
+
+    /**
+     * Set the parameters of {@link #TREE_CONDITION}.
+     * @param pstmt statement of the query
+     * @param index index of the first parameter
+     * @param dirPath path of the directory
+     */
+    static void setTree(PreparedStatement pstmt, int index, String dirPath) throws SQLException {
+        // Parent directories are stored without a trailing separator.
+        String normalized = Path.of(dirPath).toString();
+        pstmt.setString(index, normalized);
+        pstmt.setString(index + 1, SqlDialect.pathsUnderPattern(normalized));
+    }
+}
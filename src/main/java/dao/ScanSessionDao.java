@@ -0,0 +1,87 @@
+package dao;
+
+import model.metadata.ScanSession;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DTO class for ScanSession using SQL database.
+ * Ids are generated by the database, so they increase even across processes.
+ */
+public class ScanSessionDao {
+
+    private final Connection connection;
+
+    /**
+     * Table name for ScanSession.
+     */
+    public static final String SCAN_SESSION_TB_NAME = "scan_session";
+
+    /**
+     * Constructor for ScanSessionDao.
+     * @param connection connection to the database
+     */
+    public ScanSessionDao(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Start a new scan session.
+     * @param rootPath absolute root path of the scan
+     * @return started session, or null if it cannot be stored
+     */
+    public ScanSession start(String rootPath) {
+        String insertQuery = "INSERT INTO " + SCAN_SESSION_TB_NAME + " (root_path, started_at) VALUES (?, ?)";
+        long startedAt = System.currentTimeMillis();
+        try (PreparedStatement pstmt = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, rootPath);
+            pstmt.setLong(2, startedAt);
+            pstmt.executeUpdate();
+            ResultSet rs = pstmt.getGeneratedKeys();
+            if (rs.next()) {
+                return new ScanSession(rs.getLong(1), rootPath, startedAt);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Search a session by id.
+     * @param id id of the session
+     * @return session, or null if it is not in the database
+     */
+    public ScanSession searchById(long id) {
+        String selectQuery = "SELECT id, root_path, started_at FROM " + SCAN_SESSION_TB_NAME + " WHERE id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
+            pstmt.setLong(1, id);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new ScanSession(rs.getLong("id"), rs.getString("root_path"), rs.getLong("started_at"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Record that the session is finished.
+     * @param scanSession finished session
+     */
+    public void finish(ScanSession scanSession) {
+        String updateQuery = "UPDATE " + SCAN_SESSION_TB_NAME + " SET finished_at = ? WHERE id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(updateQuery)) {
+            pstmt.setLong(1, System.currentTimeMillis());
+            pstmt.setLong(2, scanSession.id());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
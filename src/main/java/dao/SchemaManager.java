@@ -0,0 +1,497 @@
+package dao;
+
+import model.hasher.Hash;
+import model.metadata.TableStats;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static dao.DirMetadataDao.DIR_TB_NAME;
+import static dao.FileMetadataDao.FILE_TB_NAME;
+import static dao.ScanSessionDao.SCAN_SESSION_TB_NAME;
+
+/**
+ * Class for creating and migrating the tables and indexes used by the DAOs.
+ * The schema has a version stored in the database, and the migrations newer than it are applied in order.
+ * Each migration keeps the tables, columns and indexes that already exist,
+ * so tables created before the version was stored are migrated from the beginning.
+ */
+public class SchemaManager {
+
+    /**
+     * Version of the schema made by the migrations.
+     */
+    public static final int SCHEMA_VERSION = 3;
+
+    /**
+     * Table name for the version of the schema.
+     */
+    static final String SCHEMA_VERSION_TB_NAME = "schema_version";
+
+    /**
+     * Index for grouping files by size and hash.
+     */
+    static final String SIZE_HASH_INDEX_NAME = "idx_file_metadata_size_hash";
+
+    /**
+     * Unique indexes for looking up rows by path hash.
+     */
+    static final String FILE_PATH_HASH_INDEX_NAME = "idx_file_metadata_path_hash";
+    static final String DIR_PATH_HASH_INDEX_NAME = "idx_dir_metadata_path_hash";
+
+    /**
+     * Indexes for finding the children of a directory.
+     */
+    static final String FILE_PARENT_DIR_INDEX_NAME = "idx_file_metadata_parent_dir";
+    static final String DIR_PARENT_DIR_INDEX_NAME = "idx_dir_metadata_parent_dir";
+
+    /**
+     * Number of rows read at once while filling a new column.
+     */
+    private static final int FILL_BATCH_SIZE = 10_000;
+
+    /**
+     * Maximum length of the path columns.
+     */
+    private static final int PATH_LENGTH = 768;
+
+    private final Connection connection;
+
+    /**
+     * Constructor for SchemaManager.
+     * @param connection connection to the database
+     */
+    public SchemaManager(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Create the tables and indexes, or migrate them to the current version.
+     * A failed migration is not recorded, so it is applied again at the next start.
+     * @throws IllegalStateException if the database has a newer schema than this version of the program,
+     *                               or if the tables cannot be created or migrated
+     */
+    public void createTables() {
+        int next = 0;
+        try {
+            execute("CREATE TABLE IF NOT EXISTS " + SCHEMA_VERSION_TB_NAME + " (version INT NOT NULL)");
+            int version = getVersion();
+            if (version > SCHEMA_VERSION) {
+                throw new IllegalStateException("Database schema version " + version
+                        + " is newer than the supported version " + SCHEMA_VERSION);
+            }
+            for (next = version + 1; next <= SCHEMA_VERSION; next++) {
+                migrate(next);
+                setVersion(next);
+            }
+        } catch (SQLException | BatchWriteException e) {
+            // The DAOs only work with the current schema, so nothing can be written after a failed migration.
+            throw new IllegalStateException("Cannot migrate database schema to version " + next, e);
+        }
+    }
+
+    /**
+     * Get version of the schema in the database.
+     * @return schema version, or 0 if no version is stored
+     */
+    public int getVersion() {
+        String selectQuery = "SELECT MAX(version) FROM " + SCHEMA_VERSION_TB_NAME;
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(selectQuery);
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Get row count and size of the tables and their indexes.
+     * @return stats of each table
+     */
+    public List<TableStats> getTableStats() {
+        SqlDialect dialect = SqlDialect.of(connection);
+        List<TableStats> result = new ArrayList<>();
+        for (String tableName : List.of(FILE_TB_NAME, DIR_TB_NAME, SCAN_SESSION_TB_NAME)) {
+            long rowCount = -1;
+            long dataBytes = -1;
+            long indexBytes = -1;
+            try (Statement stmt = connection.createStatement()) {
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName);
+                if (rs.next()) {
+                    rowCount = rs.getLong(1);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                continue;
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(dialect.tableSizeQuery())) {
+                pstmt.setString(1, tableName);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    dataBytes = readSize(rs, 1);
+                    indexBytes = readSize(rs, 2);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            result.add(new TableStats(tableName, rowCount, dataBytes, indexBytes));
+        }
+        return result;
+    }
+
+    /**
+     * Drop the tables.
+     */
+    public void dropTables() {
+        for (String tableName : List.of(FILE_TB_NAME, DIR_TB_NAME, SCAN_SESSION_TB_NAME, SCHEMA_VERSION_TB_NAME)) {
+            try {
+                execute("DROP TABLE IF EXISTS " + tableName);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Apply the migration making the version of the schema.
+     * @param version version made by the migration
+     */
+    private void migrate(int version) throws SQLException {
+        switch (version) {
+            case 1 -> createMetadataTables();
+            case 2 -> addScanSessions();
+            case 3 -> addPathColumns();
+            default -> throw new IllegalArgumentException("Unknown schema version: " + version);
+        }
+    }
+
+    /**
+     * Version 1: metadata tables and the index for grouping duplicates.
+     * Path columns are unique, so they are indexed too, until version 3 keys the rows by path hash.
+     */
+    private void createMetadataTables() throws SQLException {
+        execute("CREATE TABLE IF NOT EXISTS " + FILE_TB_NAME +
+                "(id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "path VARCHAR(768) NOT NULL UNIQUE, " +
+                "last_modified BIGINT NOT NULL, " +
+                "size BIGINT NOT NULL, " +
+                "hash VARBINARY(32), " +
+                "partial_hash VARBINARY(32), " +
+                "hash_algorithm VARCHAR(16), " +
+                "file_key VARCHAR(64), " +
+                "reflink_of VARCHAR(64))");
+        execute("CREATE TABLE IF NOT EXISTS " + DIR_TB_NAME +
+                "(id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "path VARCHAR(768) NOT NULL UNIQUE, " +
+                "last_modified BIGINT NOT NULL, " +
+                "content_count INT NOT NULL)");
+        // Tables created before the schema was managed have short paths, hex hashes and fewer columns.
+        widenColumn(FILE_TB_NAME, "path", PATH_LENGTH);
+        widenColumn(DIR_TB_NAME, "path", PATH_LENGTH);
+        convertHexHashes();
+        addColumn(FILE_TB_NAME, "partial_hash", "VARBINARY(32)");
+        addColumn(FILE_TB_NAME, "hash_algorithm", "VARCHAR(16)");
+        addColumn(FILE_TB_NAME, "file_key", "VARCHAR(64)");
+        addColumn(FILE_TB_NAME, "reflink_of", "VARCHAR(64)");
+        createIndex(FILE_TB_NAME, SIZE_HASH_INDEX_NAME, List.of("size", "hash"), false);
+    }
+
+    /**
+     * Replace the hexadecimal hash column of the tables created before the schema was managed
+     * with a nullable binary column, so a file can be stored before it is hashed.
+     * Stored hashes are converted, and invalid ones are cleared to be hashed again.
+     * The hashes are written to a new column first, so an interrupted conversion is continued at the next start.
+     */
+    private void convertHexHashes() throws SQLException {
+        ColumnInfo hashColumn = findColumn(FILE_TB_NAME, "hash");
+        if (hashColumn != null && hashColumn.isCharacter()) {
+            addColumn(FILE_TB_NAME, "hash_bytes", "VARBINARY(32)");
+            updateInPages(FILE_TB_NAME, "hash", "hash IS NOT NULL",
+                    "UPDATE " + FILE_TB_NAME + " SET hash_bytes = ? WHERE id = ?",
+                    (pstmt, row) -> {
+                        pstmt.setBytes(1, hexToBytes(row.value()));
+                        pstmt.setLong(2, row.id());
+                    });
+            execute("ALTER TABLE " + FILE_TB_NAME + " DROP COLUMN hash");
+            hashColumn = null;
+        }
+        if (hashColumn == null && hasColumn(FILE_TB_NAME, "hash_bytes")) {
+            execute(SqlDialect.of(connection).renameColumnQuery(FILE_TB_NAME, "hash_bytes", "hash"));
+        }
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        if (hex == null || hex.isEmpty()) {
+            return null;
+        }
+        try {
+            return Hash.fromHex(hex).toBytes();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Widen the VARCHAR column if it is shorter than the length.
+     * @param tableName table to change
+     * @param columnName NOT NULL column to widen
+     * @param length new length of the column
+     */
+    private void widenColumn(String tableName, String columnName, int length) throws SQLException {
+        ColumnInfo column = findColumn(tableName, columnName);
+        if (column == null || column.size() >= length) {
+            return;
+        }
+        execute(SqlDialect.of(connection).modifyColumnTypeQuery(
+                tableName, columnName, "VARCHAR(" + length + ")", true));
+    }
+
+    /**
+     * Version 2: scan sessions stamped on the rows they touch.
+     */
+    private void addScanSessions() throws SQLException {
+        execute("CREATE TABLE IF NOT EXISTS " + SCAN_SESSION_TB_NAME +
+                "(id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "root_path VARCHAR(768) NOT NULL, " +
+                "started_at BIGINT NOT NULL, " +
+                "finished_at BIGINT)");
+        addColumn(FILE_TB_NAME, "scan_id", "BIGINT");
+        addColumn(DIR_TB_NAME, "scan_id", "BIGINT");
+    }
+
+    /**
+     * Version 3: path hash and parent directory of the rows.
+     * Existing rows are filled before the unique index is created.
+     * Rows are then keyed by the path hash, so the wide unique index on the path is dropped.
+     */
+    private void addPathColumns() throws SQLException {
+        for (String tableName : List.of(FILE_TB_NAME, DIR_TB_NAME)) {
+            addColumn(tableName, "path_hash", "VARBINARY(32)");
+            addColumn(tableName, "parent_dir", "VARCHAR(768)");
+            fillPathColumns(tableName);
+        }
+        createIndex(FILE_TB_NAME, FILE_PATH_HASH_INDEX_NAME, List.of("path_hash"), true);
+        createIndex(DIR_TB_NAME, DIR_PATH_HASH_INDEX_NAME, List.of("path_hash"), true);
+        dropUniqueConstraints(FILE_TB_NAME, "path");
+        dropUniqueConstraints(DIR_TB_NAME, "path");
+        createIndex(FILE_TB_NAME, FILE_PARENT_DIR_INDEX_NAME, List.of("parent_dir"), false);
+        createIndex(DIR_TB_NAME, DIR_PARENT_DIR_INDEX_NAME, List.of("parent_dir"), false);
+    }
+
+    /**
+     * Drop the unique constraints on the column.
+     * @param tableName table of the column
+     * @param columnName column of the constraints
+     */
+    private void dropUniqueConstraints(String tableName, String columnName) throws SQLException {
+        SqlDialect dialect = SqlDialect.of(connection);
+        for (String constraintName : findUniqueConstraints(tableName, columnName)) {
+            execute(dialect.dropUniqueQuery(tableName, constraintName));
+        }
+    }
+
+    /**
+     * Find the names of the single-column unique constraints on the column.
+     * @param tableName table of the column
+     * @param columnName column of the constraints
+     * @return names of the constraints
+     */
+    List<String> findUniqueConstraints(String tableName, String columnName) throws SQLException {
+        List<String> result = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(SqlDialect.of(connection).uniqueConstraintQuery())) {
+            pstmt.setString(1, tableName);
+            pstmt.setString(2, columnName);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                result.add(rs.getString(1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fill the path hash and parent directory of the rows without them.
+     * @param tableName table to fill
+     */
+    private void fillPathColumns(String tableName) throws SQLException {
+        updateInPages(tableName, "path", "path_hash IS NULL",
+                "UPDATE " + tableName + " SET path_hash = ?, parent_dir = ? WHERE id = ?",
+                (pstmt, row) -> {
+                    pstmt.setBytes(1, PathColumns.pathHash(row.value()));
+                    pstmt.setString(2, PathColumns.parentDir(row.value()));
+                    pstmt.setLong(3, row.id());
+                });
+    }
+
+    /**
+     * Update the rows matching the condition with values made from one of their columns.
+     * Rows are read in pages by id, so a large table is not loaded into memory at once.
+     * @param tableName table to update
+     * @param columnName column read from each row
+     * @param condition condition of the rows to update
+     * @param updateQuery update query of a row
+     * @param parameterSetter setter of the parameters of the update query for a row
+     */
+    private void updateInPages(
+            String tableName,
+            String columnName,
+            String condition,
+            String updateQuery,
+            BatchWriter.ParameterSetter<ColumnValue> parameterSetter) throws SQLException {
+        String selectQuery = "SELECT id, " + columnName + " FROM " + tableName +
+                " WHERE id > ? AND " + condition + " ORDER BY id LIMIT " + FILL_BATCH_SIZE;
+        BatchWriter batchWriter = new BatchWriter(connection, FILL_BATCH_SIZE);
+        long lastId = 0;
+        while (true) {
+            List<ColumnValue> rows = new ArrayList<>();
+            try (PreparedStatement pstmt = connection.prepareStatement(selectQuery)) {
+                pstmt.setLong(1, lastId);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    rows.add(new ColumnValue(rs.getLong(1), rs.getString(2)));
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            batchWriter.write(updateQuery, rows, parameterSetter);
+            lastId = rows.get(rows.size() - 1).id();
+        }
+    }
+
+    private void setVersion(int version) throws SQLException {
+        execute("DELETE FROM " + SCHEMA_VERSION_TB_NAME);
+        execute("INSERT INTO " + SCHEMA_VERSION_TB_NAME + " (version) VALUES (" + version + ")");
+    }
+
+    private static long readSize(ResultSet rs, int columnIndex) throws SQLException {
+        long size = rs.getLong(columnIndex);
+        return rs.wasNull() ? -1 : size;
+    }
+
+    /**
+     * Value of a column read from a row.
+     * @param id id of the row
+     * @param value value of the column
+     */
+    private record ColumnValue(long id, String value) {
+    }
+
+    /**
+     * Type of a column read from the metadata.
+     * @param dataType SQL type from {@link Types}
+     * @param size maximum length of a character column
+     */
+    private record ColumnInfo(int dataType, int size) {
+
+        boolean isCharacter() {
+            return dataType == Types.VARCHAR || dataType == Types.CHAR
+                    || dataType == Types.NVARCHAR || dataType == Types.NCHAR;
+        }
+    }
+
+    /**
+     * Add the column if the table does not have it.
+     * @param tableName table to change
+     * @param columnName name of the column
+     * @param definition type and constraints of the column
+     */
+    private void addColumn(String tableName, String columnName, String definition) throws SQLException {
+        if (hasColumn(tableName, columnName)) {
+            return;
+        }
+        execute("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + definition);
+    }
+
+    /**
+     * Check whether the table has a column with the name.
+     * @param tableName table to check
+     * @param columnName name of the column
+     * @return true if the column exists
+     */
+    boolean hasColumn(String tableName, String columnName) {
+        return findColumn(tableName, columnName) != null;
+    }
+
+    /**
+     * Read the type of the column from the metadata.
+     * @param tableName table of the column
+     * @param columnName name of the column
+     * @return type of the column, or null if the column does not exist
+     */
+    private ColumnInfo findColumn(String tableName, String columnName) {
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : List.of(tableName, tableName.toUpperCase())) {
+                try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                    while (rs.next()) {
+                        if (columnName.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                            return new ColumnInfo(rs.getInt("DATA_TYPE"), rs.getInt("COLUMN_SIZE"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Create the index if the table does not have an index with the name.
+     * MySQL does not support CREATE INDEX IF NOT EXISTS, so the indexes are read from the metadata first.
+     * @param tableName table to index
+     * @param indexName name of the index
+     * @param columns indexed columns
+     * @param unique true to create a unique index
+     */
+    private void createIndex(String tableName, String indexName, List<String> columns, boolean unique)
+            throws SQLException {
+        if (hasIndex(tableName, indexName)) {
+            return;
+        }
+        execute("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + indexName
+                + " ON " + tableName + " (" + String.join(", ", columns) + ")");
+    }
+
+    /**
+     * Check whether the table has an index with the name.
+     * @param tableName table to check
+     * @param indexName name of the index
+     * @return true if the index exists
+     */
+    boolean hasIndex(String tableName, String indexName) {
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // H2 keeps unquoted names in upper case, and MySQL keeps them as written.
+            for (String name : List.of(tableName, tableName.toUpperCase())) {
+                try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, name, false, true)) {
+                    while (rs.next()) {
+                        if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private void execute(String query) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(query);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package dao;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SQL dialect of the connected database, for queries that are not standard.
+ */
+enum SqlDialect {
+    H2,
+    MYSQL;
+
+    /**
+     * Detect the dialect of the connected database.
+     * MySQL is used if the database cannot be detected.
+     * @param connection connection to the database
+     * @return dialect of the database
+     */
+    static SqlDialect of(Connection connection) {
+        try {
+            String productName = connection.getMetaData().getDatabaseProductName();
+            if ("H2".equalsIgnoreCase(productName)) {
+                return H2;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return MYSQL;
+    }
+
+    /**
+     * Get fetch size for reading a large result row by row with a forward-only cursor.
+     * MySQL streams the result only with Integer.MIN_VALUE.
+     * @return fetch size
+     */
+    int streamingFetchSize() {
+        return switch (this) {
+            case H2 -> 1000;
+            case MYSQL -> Integer.MIN_VALUE;
+        };
+    }
+
+    /**
+     * Make a query inserting a row, or updating the row if the key already exists.
+     * The key column must have a unique index.
+     * MySQL needs 8.0.19 or later for the alias of the inserted row.
+     * @param tableName table to write
+     * @param keyColumn unique column identifying the row
+     * @param columns all columns to write including the key column, in the order of the parameters
+     * @return upsert query with parameters
+     */
+    String upsertQuery(String tableName, String keyColumn, List<String> columns) {
+        String columnList = String.join(", ", columns);
+        String parameterList = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+        return switch (this) {
+            case H2 -> "MERGE INTO " + tableName + " (" + columnList + ") KEY(" + keyColumn + ") " +
+                    "VALUES (" + parameterList + ")";
+            // The inserted row is referred to by an alias, because VALUES() in the update is deprecated.
+            case MYSQL -> "INSERT INTO " + tableName + " (" + columnList + ") VALUES (" + parameterList + ") AS new " +
+                    "ON DUPLICATE KEY UPDATE " + columns.stream()
+                    .filter(column -> !column.equals(keyColumn))
+                    .map(column -> column + " = new." + column)
+                    .collect(Collectors.joining(", "));
+        };
+    }
+
+    /**
+     * Make a query changing the type of a column.
+     * H2 keeps the NOT NULL constraint of the column, and MySQL sets it from the argument.
+     * @param tableName table to change
+     * @param columnName column to change
+     * @param type new type of the column
+     * @param notNull true if the column is NOT NULL
+     * @return ALTER TABLE query
+     */
+    String modifyColumnTypeQuery(String tableName, String columnName, String type, boolean notNull) {
+        return switch (this) {
+            case H2 -> "ALTER TABLE " + tableName + " ALTER COLUMN " + columnName + " SET DATA TYPE " + type;
+            case MYSQL -> "ALTER TABLE " + tableName + " MODIFY COLUMN " + columnName + " " + type
+                    + (notNull ? " NOT NULL" : "");
+        };
+    }
+
+    /**
+     * Make a query renaming a column.
+     * @param tableName table to change
+     * @param columnName current name of the column
+     * @param newColumnName new name of the column
+     * @return ALTER TABLE query
+     */
+    String renameColumnQuery(String tableName, String columnName, String newColumnName) {
+        return switch (this) {
+            case H2 -> "ALTER TABLE " + tableName + " ALTER COLUMN " + columnName + " RENAME TO " + newColumnName;
+            case MYSQL -> "ALTER TABLE " + tableName + " RENAME COLUMN " + columnName + " TO " + newColumnName;
+        };
+    }
+
+    /**
+     * Make a query of the names of the single-column unique constraints on a column.
+     * The table name and the column name are the parameters, compared case-insensitively.
+     * @return query of the constraint names
+     */
+    String uniqueConstraintQuery() {
+        String currentSchema = switch (this) {
+            case H2 -> "CURRENT_SCHEMA";
+            case MYSQL -> "DATABASE()";
+        };
+        return "SELECT tc.CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc" +
+                " JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k" +
+                " ON k.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME" +
+                " AND k.TABLE_NAME = tc.TABLE_NAME" +
+                " WHERE tc.CONSTRAINT_TYPE = 'UNIQUE' AND tc.TABLE_SCHEMA = " + currentSchema +
+                " AND UPPER(tc.TABLE_NAME) = UPPER(?) AND UPPER(k.COLUMN_NAME) = UPPER(?)" +
+                " AND NOT EXISTS (SELECT 1 FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE o" +
+                " WHERE o.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND o.CONSTRAINT_NAME = k.CONSTRAINT_NAME" +
+                " AND o.TABLE_NAME = k.TABLE_NAME AND o.COLUMN_NAME <> k.COLUMN_NAME)";
+    }
+
+    /**
+     * Make a query dropping a unique constraint.
+     * MySQL keeps a unique constraint as an index with the same name.
+     * @param tableName table of the constraint
+     * @param constraintName name of the constraint
+     * @return ALTER TABLE query
+     */
+    String dropUniqueQuery(String tableName, String constraintName) {
+        return switch (this) {
+            case H2 -> "ALTER TABLE " + tableName + " DROP CONSTRAINT " + constraintName;
+            case MYSQL -> "ALTER TABLE " + tableName + " DROP INDEX " + constraintName;
+        };
+    }
+
+    /**
+     * Make a query of the bytes used by the rows and by the indexes of a table.
+     * The table name is the only parameter.
+     * H2 only reports the bytes of the table including its indexes, so the index bytes are NULL.
+     * @return query of the data bytes and index bytes
+     */
+    String tableSizeQuery() {
+        return switch (this) {
+            case H2 -> "SELECT DISK_SPACE_USED(?), NULL";
+            case MYSQL -> "SELECT DATA_LENGTH, INDEX_LENGTH FROM information_schema.TABLES" +
+                    " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        };
+    }
+
+    /**
+     * Make a LIKE pattern matching paths under the directory, for a LIKE clause with ESCAPE '!'.
+     * '!' is used instead of the backslash, because MySQL also unescapes backslashes in string literals.
+     * @param dirPath path of the directory
+     * @return pattern matching the paths under the directory
+     */
+    static String pathsUnderPattern(String dirPath) {
+        String prefix = dirPath.endsWith(File.separator) ? dirPath : dirPath + File.separator;
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+}
@@ -0,0 +1,239 @@
+package model;
+
+import dao.FileMetadataDao;
+import model.config.ScanConfig;
+import model.hasher.Hash;
+import model.hasher.Hasher;
+import model.hasher.PartialHasher;
+import model.metadata.FileMetadata;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Class for hashing only the files that can be duplicates.
+ * Two files can only be duplicates if they have the same size,
+ * so files with a unique size are stored without hash
+ * and hashed later when another file with the same size shows up.
+ * Files with the same size are first compared by partial hash,
+ * and only the files whose partial hash also collides are hashed entirely.
+ * Hard links of the same physical file are read only once, and they are not duplicates of each other.
+ * Files are hashed concurrently in HashWorkerPool, and the results are written on the calling thread.
+ * A file that cannot be read is left without hash, so it does not stop the other files from being hashed.
+ */
+public class CandidateHasher {
+
+    private final Hasher hasher;
+
+    private final PartialHasher partialHasher;
+
+    private final ScanConfig scanConfig;
+
+    /**
+     * Constructor for CandidateHasher.
+     * @param hasher Hasher object
+     * @param scanConfig ScanConfig object
+     */
+    public CandidateHasher(Hasher hasher, ScanConfig scanConfig) {
+        this(hasher, new PartialHasher(hasher), scanConfig);
+    }
+
+    /**
+     * Constructor for CandidateHasher.
+     * @param hasher Hasher object
+     * @param partialHasher PartialHasher object
+     * @param scanConfig ScanConfig object
+     */
+    public CandidateHasher(Hasher hasher, PartialHasher partialHasher, ScanConfig scanConfig) {
+        this.hasher = hasher;
+        this.partialHasher = partialHasher;
+        this.scanConfig = scanConfig;
+    }
+
+    /**
+     * Hash all files in the database whose hash is deferred and whose size collides with another file.
+     * @param fileMetadataDao FileMetadataDao object
+     * @return number of entirely hashed physical files
+     */
+    public int hashCandidates(FileMetadataDao fileMetadataDao) {
+        return hashCollidingSizes(fileMetadataDao.getCollidingSizes(), fileMetadataDao);
+    }
+
+    /**
+     * Hash the files whose hash is deferred and whose size is one of the given sizes and collides with another file.
+     * @param fileMetadataDao FileMetadataDao object
+     * @param sizes sizes of the files to check, e.g. the sizes of the changed files
+     * @return number of entirely hashed physical files
+     */
+    public int hashCandidates(FileMetadataDao fileMetadataDao, Collection<Long> sizes) {
+        if (sizes.isEmpty()) {
+            return 0;
+        }
+        return hashCollidingSizes(fileMetadataDao.getCollidingSizes(sizes), fileMetadataDao);
+    }
+
+    /**
+     * Hash the files whose hash is deferred among the files with the colliding sizes.
+     * @param collidingSizes sizes shared by more than one physical file
+     * @param fileMetadataDao FileMetadataDao object
+     * @return number of entirely hashed physical files
+     */
+    private int hashCollidingSizes(List<Long> collidingSizes, FileMetadataDao fileMetadataDao) {
+        AtomicInteger hashedCount = new AtomicInteger();
+        WriteBuffer<FileMetadata> partialHashBuffer = new WriteBuffer<>(
+                scanConfig.getBatchSize(), fileMetadataDao::updatePartialHashAll);
+        WriteBuffer<FileMetadata> hashBuffer = new WriteBuffer<>(
+                scanConfig.getBatchSize(), fileMetadataDao::updateAll);
+        try (HashWorkerPool pool = new HashWorkerPool(scanConfig.getWorkerCount(), scanConfig.getQueueBound())) {
+            // Make partial hash of all files with colliding size first,
+            // so the files can be grouped by partial hash.
+            // Partial hash is stored in the database and reused in the later runs.
+            Stream<List<FileMetadata>> partialCandidates = collidingSizes.stream()
+                    .filter(size -> !partialHasher.coversWholeFile(size))
+                    .flatMap(size -> groupByPhysicalFile(searchReadableBySize(size, fileMetadataDao)).stream())
+                    .filter(links -> links.stream().anyMatch(metadata -> metadata.partialHash() == null));
+            pool.run(
+                    partialCandidates::iterator,
+                    links -> {
+                        Hash partialHash = findStored(links, FileMetadata::partialHash);
+                        if (partialHash == null) {
+                            try {
+                                partialHash = partialHasher.makePartialHash(links.get(0).path());
+                            } catch (UncheckedIOException e) {
+                                // The file is removed or not readable anymore, so it is left without partial hash.
+                                return List.<FileMetadata>of();
+                            }
+                        }
+                        return withMissing(links, FileMetadata::partialHash, FileMetadata::withPartialHash, partialHash);
+                    },
+                    links -> links.forEach(partialHashBuffer::add)
+            );
+            partialHashBuffer.flush();
+
+            // Hash entirely only the files whose partial hash also collides.
+            Stream<List<FileMetadata>> candidates = collidingSizes.stream()
+                    .flatMap(size -> groupByPartialHash(size, fileMetadataDao).stream())
+                    .map(CandidateHasher::groupByPhysicalFile)
+                    .filter(group -> group.size() > 1)
+                    .flatMap(Collection::stream)
+                    .filter(links -> links.stream().anyMatch(FileMetadata::isHashDeferred));
+            pool.run(
+                    candidates::iterator,
+                    // Size and last modified time are already read while searching.
+                    links -> {
+                        Hash hash = findStored(links, FileMetadata::hash);
+                        if (hash == null) {
+                            try {
+                                hash = makeHash(links.get(0).path());
+                            } catch (UncheckedIOException e) {
+                                // The file is left deferred, and it is hashed again in a later scan.
+                                return List.<FileMetadata>of();
+                            }
+                            hashedCount.incrementAndGet();
+                        }
+                        return withMissing(links, FileMetadata::hash, FileMetadata::withHash, hash);
+                    },
+                    links -> links.forEach(hashBuffer::add)
+            );
+            hashBuffer.flush();
+        }
+        return hashedCount.get();
+    }
+
+    /**
+     * Group files with the given size by partial hash.
+     * @param size size of the files
+     * @param fileMetadataDao FileMetadataDao object
+     * @return groups of the files that can be duplicates
+     */
+    private Collection<List<FileMetadata>> groupByPartialHash(long size, FileMetadataDao fileMetadataDao) {
+        List<FileMetadata> files = searchReadableBySize(size, fileMetadataDao);
+        // Small files are read entirely anyway, so they are all in one group.
+        if (partialHasher.coversWholeFile(size)) {
+            return List.of(files);
+        }
+        Map<Hash, List<FileMetadata>> groups = new HashMap<>();
+        for (FileMetadata metadata : files) {
+            if (metadata.partialHash() == null) {
+                continue;
+            }
+            groups.computeIfAbsent(metadata.partialHash(), k -> new LinkedList<>()).add(metadata);
+        }
+        return groups.values();
+    }
+
+    /**
+     * Group hard links of the same physical file.
+     * Links share their content, so only one of them is read and its hash is copied to the others.
+     * @param files files to group
+     * @return links of each physical file
+     */
+    private static Collection<List<FileMetadata>> groupByPhysicalFile(List<FileMetadata> files) {
+        Map<String, List<FileMetadata>> links = new LinkedHashMap<>();
+        for (FileMetadata metadata : files) {
+            links.computeIfAbsent(metadata.physicalKey(), k -> new LinkedList<>()).add(metadata);
+        }
+        return links.values();
+    }
+
+    /**
+     * Find a hash already stored for one of the links.
+     * @param links links of one physical file
+     * @param getter getter of the hash
+     * @return stored hash, or null if no link has it
+     */
+    private static Hash findStored(List<FileMetadata> links, Function<FileMetadata, Hash> getter) {
+        for (FileMetadata metadata : links) {
+            Hash hash = getter.apply(metadata);
+            if (hash != null) {
+                return hash;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copy the hash to the links that do not have it yet.
+     * @param links links of one physical file
+     * @param getter getter of the hash
+     * @param setter copier of the metadata with the hash
+     * @param hash hash of the physical file
+     * @return links updated with the hash
+     */
+    private static List<FileMetadata> withMissing(
+            List<FileMetadata> links,
+            Function<FileMetadata, Hash> getter,
+            BiFunction<FileMetadata, Hash, FileMetadata> setter,
+            Hash hash) {
+        List<FileMetadata> result = new ArrayList<>(links.size());
+        for (FileMetadata metadata : links) {
+            if (getter.apply(metadata) == null) {
+                result.add(setter.apply(metadata, hash));
+            }
+        }
+        return result;
+    }
+
+    private Hash makeHash(String path) {
+        return hasher.makeHash(Path.of(path));
+    }
+
+    private static List<FileMetadata> searchReadableBySize(long size, FileMetadataDao fileMetadataDao) {
+        List<FileMetadata> result = fileMetadataDao.searchBySize(size);
+        // The file may be removed after the last scan.
+        result.removeIf(metadata -> !Files.isReadable(Path.of(metadata.path())));
+        return result;
+    }
+}
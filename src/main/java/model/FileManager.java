@@ -1,39 +1,77 @@
 package model;
 
+import dao.BatchWriteException;
 import dao.ConfigManager;
 import dao.DirMetadataDao;
+import dao.ScanSessionDao;
+import model.config.ScanCheckpoint;
+import model.config.ScanConfig;
 import model.metadata.DirMetadata;
 import model.metadata.FileMetadata;
+import model.metadata.ScanSession;
 import dao.FileMetadataDao;
 import model.hasher.Hasher;
+import model.index.DaoMetadataIndex;
+import model.index.MetadataIndex;
+import model.index.PreloadedMetadataIndex;
+import model.resolver.DeleteResolver;
+import model.resolver.DuplicateResolver;
+import model.resolver.LinkResolver;
 import model.searcher.ModifiedContentSearch;
 import model.searcher.TotalSearch;
+import model.searcher.WalkEntry;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Class for managing files.
  */
 public class FileManager {
 
+    /**
+     * Number of entries walked between checkpoints of a full scan
+     */
+    public static final int CHECKPOINT_INTERVAL = 50_000;
+
     private final ConfigManager configManager;
 
-    private List<String> dirPaths;
-    private List<String> filePaths;
+    private final CandidateHasher candidateHasher;
+
+    private final String hashAlgorithm;
 
-    private List<FileMetadata> duplicateFiles;
+    private final ScanConfig scanConfig;
 
-    private final Hasher hasher;
+    private final ScanReport scanReport;
 
     /**
-     * Constructor for FileManager.
+     * Constructor for FileManager with default scan options.
      * @param configManager ConfigManager object
      * @param hasher Hasher object
      */
     public FileManager(ConfigManager configManager, Hasher hasher) {
+        this(configManager, hasher, new ScanConfig());
+    }
+
+    /**
+     * Constructor for FileManager.
+     * @param configManager ConfigManager object
+     * @param hasher Hasher object
+     * @param scanConfig ScanConfig object
+     */
+    public FileManager(ConfigManager configManager, Hasher hasher, ScanConfig scanConfig) {
         this.configManager = configManager;
-        this.hasher = hasher;
+        this.scanConfig = scanConfig;
+        this.scanReport = new ScanReport();
+        this.candidateHasher = new CandidateHasher(hasher, scanConfig);
+        this.hashAlgorithm = hasher.algorithm();
         try {
             configManager.loadLastRunTimestamp();
         } catch (IOException e) {
@@ -43,161 +81,442 @@ public class FileManager {
 
     /**
      * Update all files.
+     * Files and directories are updated while they are searched,
+     * and files whose size collides with another file are hashed after the search.
+     * Files with the same size and last modified time as in the database keep their stored hash
+     * unless the scan is paranoid.
+     * Rows under the root not seen by the scan are of removed files and directories, so they are deleted.
      * @param rootPath root path of the file
      * @param dirMetadataDao DirMetadataDao object
      * @param fileMetadataDao FileMetadataDao object
+     * @param scanSessionDao ScanSessionDao object
      */
     public void updateAll(
             String rootPath,
             DirMetadataDao dirMetadataDao,
-            FileMetadataDao fileMetadataDao) {
-        TotalSearch totalSearch = new TotalSearch(rootPath);
-        this.dirPaths = totalSearch.getDirPaths();
-        this.filePaths = totalSearch.getFilePaths();
-        updateTotalDir(dirMetadataDao);
-        updateTotalFile(fileMetadataDao);
-    }
-
-    private void updateTotalDir(DirMetadataDao dirMetadataDao) {
-        for (String dirPath : dirPaths) {
-            List<DirMetadata> dirList = dirMetadataDao.searchByPath(dirPath);
-            if (dirList.isEmpty()) {
-                dirMetadataDao.insert(DirMetadata.create(dirPath));
-            }
-            else {
-                dirMetadataDao.updateByPath(dirPath, DirMetadata.create(dirPath));
+            FileMetadataDao fileMetadataDao,
+            ScanSessionDao scanSessionDao) {
+        updateAll(rootPath, dirMetadataDao, fileMetadataDao, scanSessionDao, false);
+    }
+
+    /**
+     * Update all files.
+     * Progress is saved in a checkpoint file while scanning, and the file is deleted when the scan is finished.
+     * A resumed scan skips the entries written before the checkpoint,
+     * or goes straight to hashing if the walk was already finished.
+     * @param rootPath root path of the file
+     * @param dirMetadataDao DirMetadataDao object
+     * @param fileMetadataDao FileMetadataDao object
+     * @param scanSessionDao ScanSessionDao object
+     * @param resume true to resume from the checkpoint of an interrupted scan of the same root, if there is one
+     * @throws BatchWriteException if rows cannot be written; the scan stops before the next checkpoint
+     *                             and before removed files are swept, so it can be resumed
+     */
+    public void updateAll(
+            String rootPath,
+            DirMetadataDao dirMetadataDao,
+            FileMetadataDao fileMetadataDao,
+            ScanSessionDao scanSessionDao,
+            boolean resume) {
+        String absoluteRootPath = Path.of(rootPath).toAbsolutePath().toString();
+        ScanCheckpoint checkpoint = resume ? loadCheckpoint(absoluteRootPath) : null;
+        // Rows written before the interruption are stamped with the id of the interrupted scan,
+        // so the resumed scan goes on with the same id.
+        ScanSession scanSession = checkpoint == null ? null : scanSessionDao.searchById(checkpoint.getScanId());
+        if (scanSession == null) {
+            checkpoint = null;
+            scanSession = startScanSession(absoluteRootPath, scanSessionDao);
+        }
+        long scanId = scanSession.id();
+        clearOtherAlgorithmHashes(fileMetadataDao);
+        AtomicLong unchangedCount = new AtomicLong();
+        if (checkpoint == null || !checkpoint.isWalked()) {
+            String resumeAfter = checkpoint == null ? null : checkpoint.getLastPath();
+            scanReport.recordResume(resumeAfter);
+            TotalSearch totalSearch = new TotalSearch(absoluteRootPath);
+            WriteBuffer<DirMetadata> dirBuffer = new WriteBuffer<>(
+                    scanConfig.getBatchSize(), rows -> dirMetadataDao.upsertAll(rows, scanId));
+            WriteBuffer<FileMetadata> fileBuffer = new WriteBuffer<>(
+                    scanConfig.getBatchSize(), rows -> fileMetadataDao.upsertAll(rows, scanId));
+            WriteBuffer<String> unchangedBuffer = new WriteBuffer<>(
+                    scanConfig.getBatchSize(), paths -> fileMetadataDao.markScanned(paths, scanId));
+            MetadataIndex index = openIndex(fileMetadataDao);
+            AtomicLong entryCount = new AtomicLong();
+            // Walk is sorted, so the entries before the last written entry can be skipped when resuming.
+            try (Stream<WalkEntry> entries = totalSearch.sortedStream(resumeAfter)) {
+                entries.forEach(entry -> {
+                    if (entry.isDirectory()) {
+                        dirBuffer.add(DirMetadata.from(entry.path(), entry.attributes(), entry.contentCount()));
+                    } else {
+                        FileMetadata changedFileMetadata = makeChangedFileMetadata(entry, index);
+                        if (changedFileMetadata != null) {
+                            fileBuffer.add(changedFileMetadata);
+                        } else {
+                            unchangedBuffer.add(entry.path().toString());
+                            unchangedCount.incrementAndGet();
+                        }
+                    }
+                    if (entryCount.incrementAndGet() % CHECKPOINT_INTERVAL == 0) {
+                        // All buffers are written first, so every entry up to this one is in the database.
+                        dirBuffer.flush();
+                        fileBuffer.flush();
+                        unchangedBuffer.flush();
+                        saveCheckpoint(new ScanCheckpoint(
+                                absoluteRootPath, hashAlgorithm, scanId, entry.path().toString(), false));
+                    }
+                });
             }
+            dirBuffer.flush();
+            fileBuffer.flush();
+            unchangedBuffer.flush();
+            // Every file and directory under the root is stamped by now,
+            // so the rows with an older id are of the ones removed since they were stamped.
+            scanReport.recordRemoved(
+                    fileMetadataDao.deleteNotScanned(absoluteRootPath, scanId),
+                    dirMetadataDao.deleteNotScanned(absoluteRootPath, scanId));
+            saveCheckpoint(new ScanCheckpoint(absoluteRootPath, hashAlgorithm, scanId, null, true));
+        } else {
+            scanReport.recordResume(absoluteRootPath);
+        }
+        // Files hashed before the interruption keep their stored hash, so hashing resumes by itself.
+        int hashedCount = candidateHasher.hashCandidates(fileMetadataDao);
+        scanReport.recordFiles(unchangedCount.get(), hashedCount);
+        scanSessionDao.finish(scanSession);
+        try {
+            configManager.deleteScanCheckpoint();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
-    private void updateTotalFile(FileMetadataDao fileMetadataDao) {
-        for (String filePath : filePaths) {
-            FileMetadata fileMetadata = FileMetadata.create(filePath, hasher);
-            List<FileMetadata> dupPathMetadataInDB = fileMetadataDao.searchByPath(filePath);
+    /**
+     * Load checkpoint of an interrupted scan of the root with the same hash algorithm.
+     * @param absoluteRootPath absolute root path of the scan
+     * @return checkpoint, or null if there is no checkpoint to resume from
+     */
+    private ScanCheckpoint loadCheckpoint(String absoluteRootPath) {
+        ScanCheckpoint checkpoint;
+        try {
+            checkpoint = configManager.loadScanCheckpoint();
+        } catch (IOException | RuntimeException e) {
+            // Broken checkpoint is ignored, and the scan starts from the beginning.
+            return null;
+        }
+        if (checkpoint == null
+                || !absoluteRootPath.equals(checkpoint.getRootPath())
+                || !hashAlgorithm.equals(checkpoint.getHashAlgorithm())) {
+            return null;
+        }
+        return checkpoint;
+    }
 
-            // If the file is in the database,
-            // update the metadata.
-            if (!dupPathMetadataInDB.isEmpty()) {
-                fileMetadataDao.updateByPath(filePath, fileMetadata);
-            }
-            // If the file is not in the database,
-            // insert the file into the database.
-            else {
-                fileMetadataDao.insert(fileMetadata);
-            }
+    private void saveCheckpoint(ScanCheckpoint checkpoint) {
+        try {
+            configManager.saveScanCheckpoint(checkpoint);
+        } catch (IOException e) {
+            // Scan goes on without a checkpoint, and can only be restarted from the beginning.
+            e.printStackTrace();
+        }
+    }
+
+    private static ScanSession startScanSession(String absoluteRootPath, ScanSessionDao scanSessionDao) {
+        ScanSession scanSession = scanSessionDao.start(absoluteRootPath);
+        if (scanSession == null) {
+            throw new IllegalStateException("Cannot start scan session of " + absoluteRootPath);
         }
+        return scanSession;
     }
 
     /**
      * Update modified contents.
+     * Files removed from a changed directory are deleted from the database,
+     * and so are the directories removed from it with everything under them.
      * @param rootPath root path of the file
      * @param dirMetadataDao DirMetadataDao object
      * @param fileMetadataDao FileMetadataDao object
+     * @param scanSessionDao ScanSessionDao object
      */
     public void updateModifiedContent(
             String rootPath,
             DirMetadataDao dirMetadataDao,
-            FileMetadataDao fileMetadataDao) {
+            FileMetadataDao fileMetadataDao,
+            ScanSessionDao scanSessionDao) {
+        String absoluteRootPath = Path.of(rootPath).toAbsolutePath().toString();
+        ScanSession scanSession = startScanSession(absoluteRootPath, scanSessionDao);
+        long scanId = scanSession.id();
 
         // Search modified contents
+        // Stored directories are compared with the live ones, so files of unchanged directories are checked
+        // only by their modified time, and unchanged directories are not written again.
+        Map<String, DirMetadata> storedDirectories = new HashMap<>();
+        for (DirMetadata dirMetadata : dirMetadataDao.getAll()) {
+            storedDirectories.put(dirMetadata.path(), dirMetadata);
+        }
         ModifiedContentSearch modifiedContentSearch = new ModifiedContentSearch(
-                rootPath,
-                configManager.getLastRunTimestamp()
+                absoluteRootPath,
+                configManager.getLastRunTimestamp(),
+                storedDirectories
         );
-        this.dirPaths = modifiedContentSearch.getDirPaths();
-        this.filePaths = modifiedContentSearch.getFilePaths();
-        updateModifiedDir(dirMetadataDao);
-        this.duplicateFiles = updateModifiedFile(fileMetadataDao);
-    }
-
-    private void updateModifiedDir(DirMetadataDao dirMetadataDao) {
-        if (!dirPaths.isEmpty()) {
-            for (String modifiedDirPath : dirPaths) {
-                List<DirMetadata> dirList = dirMetadataDao.searchByPath(modifiedDirPath);
-                if (dirList.isEmpty()) {
-                    dirMetadataDao.insert(DirMetadata.create(modifiedDirPath));
-                }
-                else {
-                    long currentContentCount = DirMetadata.getActualDirContentCount(modifiedDirPath);
-                    long currentLastModified = DirMetadata.getActualDirModifiedTime(modifiedDirPath);
-                    for (DirMetadata dirMetadata : dirList) {
-                        if (dirMetadata.contentCount() != currentContentCount) {
-                            dirMetadataDao.updateContentCount(dirMetadata.path(), currentContentCount);
-                        }
-                        if (dirMetadata.lastModified() != currentLastModified) {
-                            dirMetadataDao.updateLastModified(dirMetadata.path(), currentLastModified);
-                        }
+        WriteBuffer<DirMetadata> dirBuffer = new WriteBuffer<>(
+                scanConfig.getBatchSize(), rows -> dirMetadataDao.upsertAll(rows, scanId));
+        WriteBuffer<FileMetadata> fileBuffer = new WriteBuffer<>(
+                scanConfig.getBatchSize(), rows -> fileMetadataDao.upsertAll(rows, scanId));
+        WriteBuffer<String> unchangedBuffer = new WriteBuffer<>(
+                scanConfig.getBatchSize(), paths -> fileMetadataDao.markScanned(paths, scanId));
+        clearOtherAlgorithmHashes(fileMetadataDao);
+        // Stored metadata is looked up for every modified file, so it is loaded at once if it fits in memory.
+        MetadataIndex index = openIndex(fileMetadataDao);
+        AtomicLong unchangedCount = new AtomicLong();
+        // All files of the root and of the changed directories are given by the search.
+        Set<String> changedDirPaths = new HashSet<>();
+        changedDirPaths.add(absoluteRootPath);
+        try (Stream<WalkEntry> entries = modifiedContentSearch.stream()) {
+            entries.forEach(entry -> {
+                if (entry.isDirectory()) {
+                    dirBuffer.add(DirMetadata.from(entry.path(), entry.attributes(), entry.contentCount()));
+                    changedDirPaths.add(entry.path().toString());
+                } else {
+                    FileMetadata modifiedFileMetadata = makeChangedFileMetadata(entry, index);
+                    if (modifiedFileMetadata != null) {
+                        fileBuffer.add(modifiedFileMetadata);
+                    } else {
+                        unchangedBuffer.add(entry.path().toString());
+                        unchangedCount.incrementAndGet();
                     }
                 }
-            }
+            });
         }
-    }
+        dirBuffer.flush();
+        fileBuffer.flush();
+        unchangedBuffer.flush();
+        removeFromChangedDirectories(changedDirPaths, storedDirectories.keySet(), scanId, dirMetadataDao, fileMetadataDao);
 
+        // Hash only the files whose size collides with another file.
+        int hashedCount = candidateHasher.hashCandidates(fileMetadataDao);
+        scanReport.recordFiles(unchangedCount.get(), hashedCount);
+        scanSessionDao.finish(scanSession);
+    }
 
-    private List<FileMetadata> updateModifiedFile(FileMetadataDao fileMetadataDao) {
-        Set<FileMetadata> result = new HashSet<>();
-        if (!filePaths.isEmpty()) {
-            for (String modifiedFilePath : filePaths) {
-                FileMetadata modifiedFileMetadata = FileMetadata.create(modifiedFilePath, hasher);
-                List<FileMetadata> dupPathMetadataInDB = fileMetadataDao.searchByPath(modifiedFilePath);
+    /**
+     * Delete metadata of the files and directories removed from the changed directories.
+     * Entries are removed only from directories whose modified time or content count changed,
+     * so unchanged directories, whose files are not all seen, are left as they are.
+     * @param changedDirPaths paths of the changed directories, whose files are all stamped by the scan
+     * @param storedDirPaths paths of the directories stored before the scan
+     * @param scanId id of the scan
+     * @param dirMetadataDao DirMetadataDao object
+     * @param fileMetadataDao FileMetadataDao object
+     */
+    private void removeFromChangedDirectories(
+            Set<String> changedDirPaths,
+            Collection<String> storedDirPaths,
+            long scanId,
+            DirMetadataDao dirMetadataDao,
+            FileMetadataDao fileMetadataDao) {
+        long removedFileCount = fileMetadataDao.deleteNotScannedChildren(changedDirPaths, scanId);
+        long removedDirCount = 0;
+        for (String storedDirPath : storedDirPaths) {
+            Path dir = Path.of(storedDirPath);
+            Path parent = dir.getParent();
+            if (parent != null
+                    && changedDirPaths.contains(parent.toString())
+                    && !Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+                removedFileCount += fileMetadataDao.deleteTree(storedDirPath);
+                removedDirCount += dirMetadataDao.deleteTree(storedDirPath);
+            }
+        }
+        scanReport.recordRemoved(removedFileCount, removedDirCount);
+    }
 
-                // If the file is in the database,
-                // check if the file has been modified or not.
-                if (!dupPathMetadataInDB.isEmpty()) {
-                    for (FileMetadata metadata : dupPathMetadataInDB) {
-                        if (!metadata.hash().equals(modifiedFileMetadata.hash())) {
-                            fileMetadataDao.updateByPath(modifiedFilePath, modifiedFileMetadata);
-                        }
-                    }
+    /**
+     * Update only the paths reported to be changed, e.g. by a DirectoryWatcher.
+     * Removed paths are deleted from the database with everything under them,
+     * and changed directories are read entirely, because a directory moved in keeps its old modified times.
+     * Stored metadata is looked up one by one, because only a few files are changed at once,
+     * and only the files with the sizes of the changed files are hashed.
+     * Hashes made with another algorithm are not cleared here, so {@link #clearOtherAlgorithmHashes} is called once before.
+     * @param changedPaths files and directories created, modified or removed
+     * @param changedDirectories directories whose entries changed
+     * @param dirMetadataDao DirMetadataDao object
+     * @param fileMetadataDao FileMetadataDao object
+     * @return sizes of the changed and removed files, whose duplicate groups may have changed
+     */
+    public Set<Long> updateChangedPaths(
+            Collection<Path> changedPaths,
+            Collection<Path> changedDirectories,
+            DirMetadataDao dirMetadataDao,
+            FileMetadataDao fileMetadataDao) {
+        WriteBuffer<DirMetadata> dirBuffer = new WriteBuffer<>(scanConfig.getBatchSize(), dirMetadataDao::upsertAll);
+        WriteBuffer<FileMetadata> fileBuffer = new WriteBuffer<>(scanConfig.getBatchSize(), fileMetadataDao::upsertAll);
+        MetadataIndex index = new DaoMetadataIndex(fileMetadataDao);
+        AtomicLong unchangedCount = new AtomicLong();
+        Set<Long> changedSizes = new HashSet<>();
+        Consumer<WalkEntry> handler = entry -> {
+            if (entry.isDirectory()) {
+                dirBuffer.add(DirMetadata.from(entry.path(), entry.attributes(), entry.contentCount()));
+            } else {
+                FileMetadata changedFileMetadata = makeChangedFileMetadata(entry, index);
+                if (changedFileMetadata != null) {
+                    changedSizes.add(changedFileMetadata.size());
+                    fileBuffer.add(changedFileMetadata);
+                } else {
+                    unchangedCount.incrementAndGet();
                 }
-                // If the file is not in the database,
-                // search the database by hash.
-                else {
-                    List<FileMetadata> sameHashFile = fileMetadataDao.searchByHash(modifiedFileMetadata.hash());
-                    // If the hash is not in the database,
-                    // file is a new file.
-                    // Insert the file into the database.
-                    if (sameHashFile.isEmpty()) {
-                        fileMetadataDao.insert(modifiedFileMetadata);
-                    }
-                    // If the hash is in the database,
-                    // the file is a duplicate file.
-                    // Check equality between paths
-                    // and if they are not equal,
-                    // add it as a duplicate file list.
-                    else {
-                        for (FileMetadata metadata : sameHashFile) {
-                            if (!metadata.path().equals(modifiedFilePath)) {
-                                result.add(metadata);
-                                result.add(modifiedFileMetadata);
-                            }
-                        }
-                    }
+            }
+        };
+        for (Path changedPath : changedPaths) {
+            String path = changedPath.toAbsolutePath().toString();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(changedPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                // Rows written before are flushed first, so they are not written back after the deletion.
+                dirBuffer.flush();
+                fileBuffer.flush();
+                FileMetadata removedFileMetadata = index.searchByPath(path);
+                if (removedFileMetadata != null) {
+                    changedSizes.add(removedFileMetadata.size());
                 }
+                fileMetadataDao.deleteTree(path);
+                dirMetadataDao.deleteTree(path);
+                continue;
+            }
+            if (attributes.isDirectory()) {
+                try (Stream<WalkEntry> entries = new TotalSearch(path).stream()) {
+                    entries.forEach(handler);
+                }
+                dirBuffer.add(DirMetadata.create(path));
+            } else if (attributes.isRegularFile()) {
+                handler.accept(new WalkEntry(Path.of(path), attributes, 0));
+            }
+        }
+        for (Path changedDirectory : changedDirectories) {
+            String path = changedDirectory.toAbsolutePath().toString();
+            if (Files.isDirectory(changedDirectory, LinkOption.NOFOLLOW_LINKS)) {
+                dirBuffer.add(DirMetadata.create(path));
             }
         }
-        return result.isEmpty() ? new ArrayList<>() : new ArrayList<>(result);
+        dirBuffer.flush();
+        fileBuffer.flush();
+
+        int hashedCount = candidateHasher.hashCandidates(fileMetadataDao, changedSizes);
+        scanReport.recordFiles(unchangedCount.get(), hashedCount);
+        return changedSizes;
     }
 
     /**
-     * Get duplicate files.
-     * @return duplicate files
+     * Clear hashes stored with another algorithm than the hasher of this FileManager,
+     * so they are hashed again when their size collides with another file.
+     * @param fileMetadataDao FileMetadataDao object
      */
-    public List<FileMetadata> getDuplicateFiles() {
-        return duplicateFiles;
+    public void clearOtherAlgorithmHashes(FileMetadataDao fileMetadataDao) {
+        if (!fileMetadataDao.getHashAlgorithm().equals(hashAlgorithm)) {
+            throw new IllegalArgumentException("FileMetadataDao uses " + fileMetadataDao.getHashAlgorithm()
+                    + " but the hasher uses " + hashAlgorithm);
+        }
+        scanReport.recordClearedHashes(fileMetadataDao.clearOtherAlgorithmHashes());
     }
 
     /**
-     * Delete duplicate files.
+     * Open index of the stored metadata.
+     * Metadata is loaded into memory only if the number of files is not above the threshold.
+     * @param fileMetadataDao FileMetadataDao object
+     * @return index of the stored metadata
      */
-    public void deleteDuplicateFiles() {
-        if (duplicateFiles.isEmpty()) {
-            return;
+    private MetadataIndex openIndex(FileMetadataDao fileMetadataDao) {
+        long count = fileMetadataDao.count();
+        if (count > scanConfig.getIndexThreshold()) {
+            scanReport.recordIndex(false, count, 0);
+            return new DaoMetadataIndex(fileMetadataDao);
         }
-        // First file is the original file. Do not delete it.
-        for (int i = 1; i < duplicateFiles.size(); i++) {
-            FileDelete.delete(duplicateFiles.get(i).path());
+        PreloadedMetadataIndex index = PreloadedMetadataIndex.load(fileMetadataDao, count);
+        scanReport.recordIndex(true, index.size(), index.estimatedMemoryBytes());
+        return index;
+    }
+
+    /**
+     * Make metadata of the file to write.
+     * @param entry file found while searching
+     * @param index index of the stored metadata
+     * @return metadata to write, or null if the file in the database is not changed
+     */
+    private FileMetadata makeChangedFileMetadata(WalkEntry entry, MetadataIndex index) {
+        // Hash is deferred until the size of the file collides with another file.
+        FileMetadata fileMetadata = FileMetadata.from(entry.path(), entry.attributes(), null);
+        // Paranoid scan does not trust the stored hash, so all files are written without hash to be hashed again.
+        if (scanConfig.isParanoid()) {
+            return fileMetadata;
         }
+        FileMetadata storedMetadata = index.searchByPath(fileMetadata.path());
+
+        // If the file is in the database,
+        // check if the file has been modified or not.
+        // Hash is not known yet, so compare size and last modified time.
+        if (storedMetadata != null
+                && storedMetadata.size() == fileMetadata.size()
+                && storedMetadata.lastModified() == fileMetadata.lastModified()) {
+            if (Objects.equals(storedMetadata.fileKey(), fileMetadata.fileKey())) {
+                return null;
+            }
+            // Only the file key is new, e.g. stored before file keys were recorded, so the stored hash is kept.
+            return new FileMetadata(
+                    storedMetadata.path(),
+                    storedMetadata.lastModified(),
+                    storedMetadata.size(),
+                    storedMetadata.hash(),
+                    storedMetadata.partialHash(),
+                    fileMetadata.fileKey()
+            );
+        }
+        // If the file is not in the database or modified,
+        // write the file into the database.
+        return fileMetadata;
+    }
+
+    /**
+     * Get report of the last scan.
+     * @return report of the last scan
+     */
+    public ScanReport getScanReport() {
+        return scanReport;
+    }
+
+    /**
+     * Delete duplicate files.
+     * The first file of each group is the original file and is kept.
+     * Hard links of the original file are kept, because deleting them does not free any space.
+     * @param fileMetadataDao FileMetadataDao object to delete the rows of the deleted files
+     * @param dryRun true to only report what would be deleted
+     * @return report of the deletion
+     */
+    public ResolutionReport deleteDuplicateFiles(FileMetadataDao fileMetadataDao, boolean dryRun) {
+        return resolveDuplicateFiles(new DeleteResolver(), fileMetadataDao, dryRun);
+    }
+
+    /**
+     * Replace duplicate files with links to the original file.
+     * Reflinks are used where the file system supports them, and hard links otherwise.
+     * @param fileMetadataDao FileMetadataDao object to update the rows of the linked files
+     * @param dryRun true to only report what would be linked
+     * @return report of the linking
+     */
+    public ResolutionReport linkDuplicateFiles(FileMetadataDao fileMetadataDao, boolean dryRun) {
+        return resolveDuplicateFiles(new LinkResolver(), fileMetadataDao, dryRun);
+    }
+
+    /**
+     * Resolve duplicate files of the groups in the database.
+     * The first file of each group is the original file and is kept.
+     * @param resolver resolver of each duplicate file
+     * @param fileMetadataDao FileMetadataDao object to update the rows of the resolved files
+     * @param dryRun true to only report what would be resolved
+     * @return report of the resolution
+     */
+    public ResolutionReport resolveDuplicateFiles(
+            DuplicateResolver resolver,
+            FileMetadataDao fileMetadataDao,
+            boolean dryRun) {
+        return new ResolutionExecutor(resolver, scanConfig, dryRun).execute(fileMetadataDao);
     }
 }
 
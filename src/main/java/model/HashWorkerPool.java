@@ -0,0 +1,92 @@
+package model;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pool of workers for hashing files concurrently.
+ * It is also used for other file operations that must not share the database connection.
+ * Workers only run the given task, and the results are passed to the writer on the calling thread,
+ * so the database connection is never shared between threads.
+ * Number of items in the pool is bounded, so the items are pulled from the source only as fast as they are hashed.
+ */
+public class HashWorkerPool implements AutoCloseable {
+
+    private final ExecutorService executor;
+
+    private final int queueBound;
+
+    /**
+     * Constructor for HashWorkerPool.
+     * @param workerCount number of workers
+     * @param queueBound number of items that can wait for or be in a worker at once
+     */
+    public HashWorkerPool(int workerCount, int queueBound) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive");
+        }
+        if (queueBound <= 0) {
+            throw new IllegalArgumentException("queueBound must be positive");
+        }
+        this.executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "hash-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queueBound = queueBound;
+    }
+
+    /**
+     * Run the task for every item and pass each result to the writer.
+     * Results are passed in the order they are finished.
+     * @param items items to run the task for
+     * @param task task to run on the workers
+     * @param writer consumer of the results that runs on the calling thread
+     * @param <T> type of the items
+     * @param <R> type of the results
+     */
+    public <T, R> void run(Iterable<T> items, Function<T, R> task, Consumer<R> writer) {
+        CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        Iterator<T> iterator = items.iterator();
+        while (true) {
+            // Write a finished result before taking another item if the pool is full.
+            // Checked before hasNext() because some iterators pull the next item there.
+            if (inFlight == queueBound) {
+                writer.accept(takeResult(completionService));
+                inFlight--;
+            }
+            if (!iterator.hasNext()) {
+                break;
+            }
+            T item = iterator.next();
+            completionService.submit(() -> task.apply(item));
+            inFlight++;
+        }
+        for (; inFlight > 0; inFlight--) {
+            writer.accept(takeResult(completionService));
+        }
+    }
+
+    private static <R> R takeResult(CompletionService<R> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,222 @@
+package model;
+
+import dao.FileMetadataDao;
+import model.config.ScanConfig;
+import model.metadata.DuplicateGroup;
+import model.metadata.FileMetadata;
+import model.resolver.ContentVerifier;
+import model.resolver.DuplicateResolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class for resolving duplicate files concurrently.
+ * The first file of each group is kept, and the other files are passed to the resolver.
+ * Files are grouped by directory, and the directories are resolved concurrently in HashWorkerPool,
+ * so each worker changes only one directory at a time.
+ * If the scan config asks for verification, the content of the files in each group is compared first
+ * and only the files with the same content are resolved.
+ * Errors are collected in the report instead of stopping the other files,
+ * and the database is updated in batches on the calling thread.
+ */
+public class ResolutionExecutor {
+
+    private final DuplicateResolver resolver;
+
+    private final ScanConfig scanConfig;
+
+    private final boolean dryRun;
+
+    /**
+     * Action on one duplicate file.
+     */
+    private record Action(FileMetadata original, FileMetadata duplicate) {
+    }
+
+    /**
+     * Result of an action.
+     * Result is null if the file is removed, and error is null if the action succeeded.
+     */
+    private record Outcome(Action action, FileMetadata result, String error) {
+    }
+
+    /**
+     * Groups with the same content in a duplicate group, and the number of files left out.
+     */
+    private record Verified(List<DuplicateGroup> groups, long mismatchedCount) {
+    }
+
+    /**
+     * Constructor for ResolutionExecutor.
+     * @param resolver resolver of each duplicate file
+     * @param scanConfig ScanConfig object for the number of workers and the batch size
+     * @param dryRun true to only report what would be resolved without changing files or the database
+     */
+    public ResolutionExecutor(DuplicateResolver resolver, ScanConfig scanConfig, boolean dryRun) {
+        this.resolver = resolver;
+        this.scanConfig = scanConfig;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Resolve the duplicate files of all groups in the database.
+     * Groups are read in pages of the batch size, so only one page is held in memory.
+     * @param fileMetadataDao FileMetadataDao object to read the groups and update the rows of the resolved files
+     * @return report of the resolution
+     */
+    public ResolutionReport execute(FileMetadataDao fileMetadataDao) {
+        long startTime = System.currentTimeMillis();
+        ResolutionReport report = new ResolutionReport(resolver.name(), dryRun);
+        WriteBuffer<String> deleteBuffer = new WriteBuffer<>(scanConfig.getBatchSize(), fileMetadataDao::deleteAllByPath);
+        WriteBuffer<FileMetadata> updateBuffer = new WriteBuffer<>(scanConfig.getBatchSize(), fileMetadataDao::updateAll);
+        try (HashWorkerPool pool = new HashWorkerPool(scanConfig.getWorkerCount(), scanConfig.getQueueBound())) {
+            List<DuplicateGroup> groups = fileMetadataDao.findDuplicateGroupsAfter(null, scanConfig.getBatchSize());
+            while (!groups.isEmpty()) {
+                resolvePage(groups, pool, report, deleteBuffer, updateBuffer);
+                groups = fileMetadataDao.findDuplicateGroupsAfter(groups.get(groups.size() - 1), scanConfig.getBatchSize());
+            }
+        }
+        deleteBuffer.flush();
+        updateBuffer.flush();
+        report.recordElapsed(System.currentTimeMillis() - startTime);
+        return report;
+    }
+
+    /**
+     * Resolve the duplicate files of one page of groups.
+     * All files of a physical file are in one group, so each page is credited on its own.
+     * @param groups duplicate groups of the page
+     * @param pool pool of workers
+     * @param report report of the resolution
+     * @param deleteBuffer buffer of the paths of the removed files
+     * @param updateBuffer buffer of the metadata of the replaced files
+     */
+    private void resolvePage(
+            List<DuplicateGroup> groups,
+            HashWorkerPool pool,
+            ResolutionReport report,
+            WriteBuffer<String> deleteBuffer,
+            WriteBuffer<FileMetadata> updateBuffer) {
+        Collection<DuplicateGroup> toResolve = scanConfig.isVerify() ? verifyAll(groups, pool, report) : groups;
+        List<List<Action>> chunks = planByDirectory(toResolve);
+        // Bytes of a physical file are freed only when all of its links are resolved.
+        Map<String, Integer> pendingLinks = new HashMap<>();
+        Set<String> failedKeys = new HashSet<>();
+        for (List<Action> actions : chunks) {
+            for (Action action : actions) {
+                pendingLinks.merge(action.duplicate().storageKey(), 1, Integer::sum);
+            }
+        }
+        pool.run(
+                chunks,
+                this::resolveAll,
+                outcomes -> {
+                    for (Outcome outcome : outcomes) {
+                        FileMetadata duplicate = outcome.action().duplicate();
+                        String key = duplicate.storageKey();
+                        if (outcome.error() != null) {
+                            report.recordFailure(duplicate.path(), outcome.error());
+                            failedKeys.add(key);
+                            continue;
+                        }
+                        boolean freed = pendingLinks.merge(key, -1, Integer::sum) == 0 && !failedKeys.contains(key);
+                        report.recordResolved(freed ? duplicate.size() : 0);
+                        if (dryRun) {
+                            continue;
+                        }
+                        if (outcome.result() == null) {
+                            deleteBuffer.add(duplicate.path());
+                        } else {
+                            updateBuffer.add(outcome.result());
+                        }
+                    }
+                }
+        );
+    }
+
+    /**
+     * Compare the content of the files in each group concurrently.
+     * @param groups duplicate groups
+     * @param pool pool of workers
+     * @param report report to record the files left out
+     * @return groups of the files with the same content
+     */
+    private List<DuplicateGroup> verifyAll(
+            Collection<DuplicateGroup> groups,
+            HashWorkerPool pool,
+            ResolutionReport report) {
+        ContentVerifier verifier = new ContentVerifier(scanConfig.getReadBufferSize());
+        List<DuplicateGroup> verified = new ArrayList<>();
+        pool.run(
+                groups,
+                group -> {
+                    List<DuplicateGroup> identical = verifier.verify(group);
+                    long verifiedCount = identical.stream().mapToLong(result -> result.members().size()).sum();
+                    return new Verified(identical, group.members().size() - verifiedCount);
+                },
+                result -> {
+                    verified.addAll(result.groups());
+                    report.recordMismatched(result.mismatchedCount());
+                }
+        );
+        return verified;
+    }
+
+    /**
+     * Plan actions of all groups, grouped by directory of the duplicate file.
+     * Actions of a large directory are split into chunks of the batch size.
+     * @param groups duplicate groups
+     * @return chunks of actions in one directory
+     */
+    private List<List<Action>> planByDirectory(Collection<DuplicateGroup> groups) {
+        Map<Path, List<Action>> actionsByDirectory = new LinkedHashMap<>();
+        for (DuplicateGroup group : groups) {
+            FileMetadata original = group.members().get(0);
+            for (FileMetadata duplicate : group.members()) {
+                // Hard links and reflinks of the original file free no space.
+                if (duplicate.storageKey().equals(original.storageKey())) {
+                    continue;
+                }
+                Path directory = Path.of(duplicate.path()).toAbsolutePath().getParent();
+                actionsByDirectory.computeIfAbsent(directory, k -> new ArrayList<>()).add(new Action(original, duplicate));
+            }
+        }
+        List<List<Action>> chunks = new ArrayList<>();
+        for (List<Action> actions : actionsByDirectory.values()) {
+            for (int i = 0; i < actions.size(); i += scanConfig.getBatchSize()) {
+                chunks.add(actions.subList(i, Math.min(i + scanConfig.getBatchSize(), actions.size())));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Resolve the actions of one chunk.
+     * @param actions actions in one directory
+     * @return outcomes of the actions
+     */
+    private List<Outcome> resolveAll(List<Action> actions) {
+        List<Outcome> outcomes = new ArrayList<>(actions.size());
+        for (Action action : actions) {
+            if (dryRun) {
+                outcomes.add(new Outcome(action, action.duplicate(), null));
+                continue;
+            }
+            try {
+                outcomes.add(new Outcome(action, resolver.resolve(action.original(), action.duplicate()), null));
+            } catch (IOException | RuntimeException e) {
+                outcomes.add(new Outcome(action, null, e.toString()));
+            }
+        }
+        return outcomes;
+    }
+}
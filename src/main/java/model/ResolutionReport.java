@@ -0,0 +1,147 @@
+package model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Report of resolving duplicate files.
+ */
+public class ResolutionReport {
+
+    private final String action;
+
+    private final boolean dryRun;
+
+    private long resolvedFileCount;
+
+    private long freedBytes;
+
+    private long mismatchedFileCount;
+
+    private long elapsedMillis;
+
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    /**
+     * Constructor for ResolutionReport.
+     * @param action name of the action done to the duplicate files
+     * @param dryRun true if the files were not actually changed
+     */
+    ResolutionReport(String action, boolean dryRun) {
+        this.action = action;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Getter for action.
+     * @return name of the action done to the duplicate files
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Check whether the files were not actually changed.
+     * @return true if it was a dry run
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Getter for resolvedFileCount.
+     * @return number of resolved files, or files that would be resolved in a dry run
+     */
+    public long getResolvedFileCount() {
+        return resolvedFileCount;
+    }
+
+    /**
+     * Getter for freedBytes.
+     * @return bytes freed, or bytes that would be freed in a dry run
+     */
+    public long getFreedBytes() {
+        return freedBytes;
+    }
+
+    /**
+     * Getter for mismatchedFileCount.
+     * @return number of files left out because their content was not the same as the other files in the group
+     */
+    public long getMismatchedFileCount() {
+        return mismatchedFileCount;
+    }
+
+    /**
+     * Getter for elapsedMillis.
+     * @return time taken in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Get files that could not be resolved.
+     * @return error messages by path
+     */
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Record a resolved file.
+     * @param freed bytes freed by resolving the file
+     */
+    void recordResolved(long freed) {
+        resolvedFileCount++;
+        freedBytes += freed;
+    }
+
+    /**
+     * Record files left out by the verification.
+     * @param mismatchedCount number of files whose content was not the same as the other files in the group
+     */
+    void recordMismatched(long mismatchedCount) {
+        mismatchedFileCount += mismatchedCount;
+    }
+
+    /**
+     * Record a file that could not be resolved.
+     * @param path path of the file
+     * @param message error message
+     */
+    void recordFailure(String path, String message) {
+        failures.put(path, message);
+    }
+
+    /**
+     * Record time taken.
+     * @param elapsedMillis time taken in milliseconds
+     */
+    void recordElapsed(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        long filesPerSecond = elapsedMillis == 0 ? resolvedFileCount : resolvedFileCount * 1000 / elapsedMillis;
+        StringBuilder report = new StringBuilder()
+                .append(dryRun ? "Dry run of " : "Done: ").append(action).append(" ")
+                .append(resolvedFileCount).append(" files, ")
+                .append(freedBytes).append(dryRun ? " bytes to free" : " bytes freed")
+                .append(" in ").append(elapsedMillis).append(" ms (").append(filesPerSecond).append(" files/s)");
+        if (mismatchedFileCount > 0) {
+            report.append(System.lineSeparator()).append("Not verified: ").append(mismatchedFileCount)
+                    .append(" files with different content left untouched");
+        }
+        if (!failures.isEmpty()) {
+            report.append(System.lineSeparator()).append("Failed: ").append(failures.size()).append(" files");
+            for (Map.Entry<String, String> failure : failures.entrySet()) {
+                report.append(System.lineSeparator()).append("  ").append(failure.getKey())
+                        .append(": ").append(failure.getValue());
+            }
+        }
+        return report.toString();
+    }
+}
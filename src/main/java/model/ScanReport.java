@@ -0,0 +1,167 @@
+package model;
+
+/**
+ * Report of the last scan.
+ */
+public class ScanReport {
+
+    private boolean indexPreloaded;
+
+    private long indexEntryCount;
+
+    private long indexMemoryBytes;
+
+    private long unchangedFileCount;
+
+    private long hashedFileCount;
+
+    private long clearedHashCount;
+
+    private String resumedAfter;
+
+    private long removedFileCount;
+
+    private long removedDirCount;
+
+    /**
+     * Check whether the metadata was loaded into memory for looking up.
+     * @return true if the metadata was loaded into memory, false if the database was queried for each file
+     */
+    public boolean isIndexPreloaded() {
+        return indexPreloaded;
+    }
+
+    /**
+     * Getter for indexEntryCount.
+     * @return number of files in the database at the start of the scan
+     */
+    public long getIndexEntryCount() {
+        return indexEntryCount;
+    }
+
+    /**
+     * Getter for indexMemoryBytes.
+     * @return estimated memory used for looking up in bytes
+     */
+    public long getIndexMemoryBytes() {
+        return indexMemoryBytes;
+    }
+
+    /**
+     * Getter for unchangedFileCount.
+     * @return number of files skipped because their size and last modified time were not changed
+     */
+    public long getUnchangedFileCount() {
+        return unchangedFileCount;
+    }
+
+    /**
+     * Getter for hashedFileCount.
+     * @return number of entirely hashed files
+     */
+    public long getHashedFileCount() {
+        return hashedFileCount;
+    }
+
+    /**
+     * Getter for clearedHashCount.
+     * @return number of files whose hashes made with another algorithm were cleared
+     */
+    public long getClearedHashCount() {
+        return clearedHashCount;
+    }
+
+    /**
+     * Getter for resumedAfter.
+     * @return last path written before the interruption, the root path if only hashing was left, or null if the scan was not resumed
+     */
+    public String getResumedAfter() {
+        return resumedAfter;
+    }
+
+    /**
+     * Getter for removedFileCount.
+     * @return number of files deleted from the database because they were not found any more
+     */
+    public long getRemovedFileCount() {
+        return removedFileCount;
+    }
+
+    /**
+     * Getter for removedDirCount.
+     * @return number of directories deleted from the database because they were not found any more
+     */
+    public long getRemovedDirCount() {
+        return removedDirCount;
+    }
+
+    /**
+     * Record how the metadata was looked up.
+     * @param preloaded whether the metadata was loaded into memory
+     * @param entryCount number of files in the database
+     * @param memoryBytes estimated memory used for looking up in bytes
+     */
+    void recordIndex(boolean preloaded, long entryCount, long memoryBytes) {
+        this.indexPreloaded = preloaded;
+        this.indexEntryCount = entryCount;
+        this.indexMemoryBytes = memoryBytes;
+    }
+
+    /**
+     * Record how many files were skipped and hashed.
+     * @param unchangedCount number of files skipped because they were not changed
+     * @param hashedCount number of entirely hashed files
+     */
+    void recordFiles(long unchangedCount, long hashedCount) {
+        this.unchangedFileCount = unchangedCount;
+        this.hashedFileCount = hashedCount;
+    }
+
+    /**
+     * Record how many hashes made with another algorithm were cleared.
+     * @param clearedCount number of files whose hashes were cleared
+     */
+    void recordClearedHashes(long clearedCount) {
+        this.clearedHashCount = clearedCount;
+    }
+
+    /**
+     * Record where the scan was resumed.
+     * @param resumedAfter last path written before the interruption, the root path if only hashing was left, or null
+     */
+    void recordResume(String resumedAfter) {
+        this.resumedAfter = resumedAfter;
+    }
+
+    /**
+     * Record how many files and directories were deleted from the database.
+     * @param fileCount number of files not found any more
+     * @param dirCount number of directories not found any more
+     */
+    void recordRemoved(long fileCount, long dirCount) {
+        this.removedFileCount = fileCount;
+        this.removedDirCount = dirCount;
+    }
+
+    @Override
+    public String toString() {
+        String index = indexPreloaded
+                ? "Index: " + indexEntryCount + " files, loaded into memory (about "
+                        + (indexMemoryBytes / (1024 * 1024)) + " MiB)"
+                : "Index: " + indexEntryCount + " files, looked up in the database";
+        String report = index + System.lineSeparator()
+                + "Files: " + unchangedFileCount + " unchanged and skipped, " + hashedFileCount + " hashed";
+        if (removedFileCount > 0 || removedDirCount > 0) {
+            report += System.lineSeparator() + "Removed: " + removedFileCount + " files and "
+                    + removedDirCount + " directories not found any more";
+        }
+        if (resumedAfter != null) {
+            report += System.lineSeparator() + "Resumed after: " + resumedAfter;
+        }
+        if (clearedHashCount > 0) {
+            report += System.lineSeparator()
+                    + "Hashes of another algorithm: " + clearedHashCount + " cleared to be hashed again when needed";
+        }
+        return report;
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Buffer collecting rows to write them to the database at once.
+ * @param <T> type of the row
+ */
+class WriteBuffer<T> {
+
+    private final int capacity;
+
+    private final Consumer<List<T>> writer;
+
+    private final List<T> rows;
+
+    /**
+     * Constructor for WriteBuffer.
+     * @param capacity number of rows to collect before writing
+     * @param writer writer of the collected rows
+     */
+    WriteBuffer(int capacity, Consumer<List<T>> writer) {
+        this.capacity = capacity;
+        this.writer = writer;
+        this.rows = new ArrayList<>(capacity);
+    }
+
+    /**
+     * Add a row, and write the collected rows if the buffer is full.
+     * @param row row to add
+     */
+    void add(T row) {
+        rows.add(row);
+        if (rows.size() >= capacity) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the collected rows.
+     */
+    void flush() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        writer.accept(rows);
+        rows.clear();
+    }
+}
@@ -2,15 +2,40 @@ package model.config;
 
 import com.google.gson.GsonBuilder;
 
+import java.nio.file.Path;
 import java.util.Objects;
 
 /**
  * DTO for storing database connection information.
  */
 public class DatabaseConfig extends Config {
+
+    /**
+     * Placeholder of the database URL in the JDBC URL template
+     */
+    public static final String URL_PLACEHOLDER = "{url}";
+
+    /**
+     * Default JDBC URL template connecting to MySQL
+     */
+    public static final String DEFAULT_JDBC_URL_TEMPLATE =
+            "jdbc:mysql://" + URL_PLACEHOLDER + "/duptest?serverTimezone=UTC&useSSL=false";
+
+    /**
+     * JDBC URL template of the embedded H2 database, where the database URL is the path of the database file
+     */
+    public static final String EMBEDDED_JDBC_URL_TEMPLATE = "jdbc:h2:file:" + URL_PLACEHOLDER;
+
+    /**
+     * Default maximum number of pooled connections
+     */
+    public static final int DEFAULT_POOL_SIZE = 4;
+
     private String databaseUrl;
     private String databaseUser;
     private String databasePassword;
+    private String jdbcUrlTemplate;
+    private int poolSize;
 
     /**
      * Constructor for DatabaseConfig.
@@ -22,6 +47,8 @@ public class DatabaseConfig extends Config {
         this.databaseUrl = databaseUrl;
         this.databaseUser = databaseUser;
         this.databasePassword = databasePassword;
+        this.jdbcUrlTemplate = DEFAULT_JDBC_URL_TEMPLATE;
+        this.poolSize = DEFAULT_POOL_SIZE;
     }
 
     /**
@@ -32,6 +59,21 @@ public class DatabaseConfig extends Config {
         this.databaseUrl = "URL of the database";
         this.databaseUser = "username of the database";
         this.databasePassword = "password of the database";
+        this.jdbcUrlTemplate = DEFAULT_JDBC_URL_TEMPLATE;
+        this.poolSize = DEFAULT_POOL_SIZE;
+    }
+
+    /**
+     * Create DatabaseConfig of the embedded database stored in a local file.
+     * @param databaseFile path of the database file without the extension
+     * @return DatabaseConfig object
+     */
+    public static DatabaseConfig embedded(String databaseFile) {
+        // H2 does not accept a relative path without "./".
+        String absolutePath = Path.of(databaseFile).toAbsolutePath().toString();
+        DatabaseConfig databaseConfig = new DatabaseConfig(absolutePath, "sa", "");
+        databaseConfig.setJdbcUrlTemplate(EMBEDDED_JDBC_URL_TEMPLATE);
+        return databaseConfig;
     }
 
     /**
@@ -66,6 +108,52 @@ public class DatabaseConfig extends Config {
         return databasePassword;
     }
 
+    /**
+     * Getter for jdbcUrlTemplate.
+     * @return JDBC URL with {@link #URL_PLACEHOLDER} in place of the database URL
+     */
+    public String getJdbcUrlTemplate() {
+        return jdbcUrlTemplate;
+    }
+
+    /**
+     * Setter for jdbcUrlTemplate.
+     * @param jdbcUrlTemplate JDBC URL with {@link #URL_PLACEHOLDER} in place of the database URL, or a complete JDBC URL
+     */
+    public void setJdbcUrlTemplate(String jdbcUrlTemplate) {
+        if (jdbcUrlTemplate == null || !jdbcUrlTemplate.startsWith("jdbc:")) {
+            throw new IllegalArgumentException("jdbcUrlTemplate must start with jdbc:");
+        }
+        this.jdbcUrlTemplate = jdbcUrlTemplate;
+    }
+
+    /**
+     * Get JDBC URL made from the template and the database URL.
+     * @return JDBC URL
+     */
+    public String getJdbcUrl() {
+        return jdbcUrlTemplate.replace(URL_PLACEHOLDER, databaseUrl);
+    }
+
+    /**
+     * Getter for poolSize.
+     * @return maximum number of pooled connections
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Setter for poolSize.
+     * @param poolSize maximum number of pooled connections
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive");
+        }
+        this.poolSize = poolSize;
+    }
+
     @Override
     public String serialize() {
         return new GsonBuilder().setPrettyPrinting().create().toJson(this);
@@ -77,6 +165,10 @@ public class DatabaseConfig extends Config {
         this.databaseUrl = databaseConfig.getDatabaseUrl();
         this.databaseUser = databaseConfig.getDatabaseUser();
         this.databasePassword = databaseConfig.getDatabasePassword();
+        // Config files written before these options were added do not have them.
+        this.jdbcUrlTemplate = databaseConfig.getJdbcUrlTemplate() != null
+                ? databaseConfig.getJdbcUrlTemplate() : DEFAULT_JDBC_URL_TEMPLATE;
+        this.poolSize = databaseConfig.getPoolSize() > 0 ? databaseConfig.getPoolSize() : DEFAULT_POOL_SIZE;
     }
 
     @Override
@@ -85,11 +177,13 @@ public class DatabaseConfig extends Config {
         if (!(o instanceof DatabaseConfig that)) return false;
         return Objects.equals(getDatabaseUrl(), that.getDatabaseUrl())
                 && Objects.equals(getDatabaseUser(), that.getDatabaseUser())
-                && Objects.equals(getDatabasePassword(), that.getDatabasePassword());
+                && Objects.equals(getDatabasePassword(), that.getDatabasePassword())
+                && Objects.equals(getJdbcUrlTemplate(), that.getJdbcUrlTemplate())
+                && getPoolSize() == that.getPoolSize();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getDatabaseUrl(), getDatabaseUser(), getDatabasePassword());
+        return Objects.hash(getDatabaseUrl(), getDatabaseUser(), getDatabasePassword(), getJdbcUrlTemplate(), getPoolSize());
     }
 }
@@ -0,0 +1,113 @@
+package model.config;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.Objects;
+
+/**
+ * DTO for storing progress of a full scan, so an interrupted scan can be resumed.
+ * The walk is sorted, so everything up to the last path is already written to the database.
+ */
+public class ScanCheckpoint extends Config {
+
+    private String rootPath;
+    private String hashAlgorithm;
+    private long scanId;
+    private String lastPath;
+    private boolean walked;
+
+    /**
+     * Constructor for ScanCheckpoint.
+     * @param rootPath absolute root path of the scan
+     * @param hashAlgorithm id of the hash algorithm of the scan
+     * @param scanId id of the scan session stamped on the written rows
+     * @param lastPath absolute path of the last entry written to the database, or null if none is written yet
+     * @param walked true if the walk is finished and only hashing is left
+     */
+    public ScanCheckpoint(String rootPath, String hashAlgorithm, long scanId, String lastPath, boolean walked) {
+        this.rootPath = rootPath;
+        this.hashAlgorithm = hashAlgorithm;
+        this.scanId = scanId;
+        this.lastPath = lastPath;
+        this.walked = walked;
+    }
+
+    /**
+     * Constructor for ScanCheckpoint.
+     * @param json JSON string
+     */
+    public ScanCheckpoint(String json) {
+        deserialize(json);
+    }
+
+    /**
+     * Getter for rootPath.
+     * @return absolute root path of the scan
+     */
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * Getter for hashAlgorithm.
+     * @return id of the hash algorithm of the scan
+     */
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    /**
+     * Getter for scanId.
+     * @return id of the scan session stamped on the written rows
+     */
+    public long getScanId() {
+        return scanId;
+    }
+
+    /**
+     * Getter for lastPath.
+     * @return absolute path of the last entry written to the database, or null if none is written yet
+     */
+    public String getLastPath() {
+        return lastPath;
+    }
+
+    /**
+     * Getter for walked.
+     * @return true if the walk is finished and only hashing is left
+     */
+    public boolean isWalked() {
+        return walked;
+    }
+
+    @Override
+    public String serialize() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(this);
+    }
+
+    @Override
+    public void deserialize(String json) {
+        ScanCheckpoint scanCheckpoint = new GsonBuilder().create().fromJson(json, ScanCheckpoint.class);
+        this.rootPath = scanCheckpoint.getRootPath();
+        this.hashAlgorithm = scanCheckpoint.getHashAlgorithm();
+        this.scanId = scanCheckpoint.getScanId();
+        this.lastPath = scanCheckpoint.getLastPath();
+        this.walked = scanCheckpoint.isWalked();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScanCheckpoint that)) return false;
+        return Objects.equals(getRootPath(), that.getRootPath())
+                && Objects.equals(getHashAlgorithm(), that.getHashAlgorithm())
+                && getScanId() == that.getScanId()
+                && Objects.equals(getLastPath(), that.getLastPath())
+                && isWalked() == that.isWalked();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getRootPath(), getHashAlgorithm(), getScanId(), getLastPath(), isWalked());
+    }
+}
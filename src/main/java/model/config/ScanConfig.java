@@ -0,0 +1,245 @@
+package model.config;
+
+import com.google.gson.GsonBuilder;
+import model.hasher.Hashers;
+
+import java.util.Objects;
+
+/**
+ * DTO for storing options of a scan.
+ */
+public class ScanConfig extends Config {
+
+    /**
+     * Default number of hashing workers
+     */
+    public static final int DEFAULT_WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default number of files that can wait for or be in hashing at once
+     */
+    public static final int DEFAULT_QUEUE_BOUND = DEFAULT_WORKER_COUNT * 4;
+
+    /**
+     * Default number of rows written to the database at once
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Default maximum number of files loaded into memory for looking up during a scan
+     */
+    public static final int DEFAULT_INDEX_THRESHOLD = 2_000_000;
+
+    private int workerCount;
+    private int queueBound;
+    private int batchSize;
+    private int indexThreshold;
+    private boolean paranoid;
+    private boolean verify;
+    private String hashAlgorithm;
+    private int readBufferSize;
+
+    /**
+     * Constructor for ScanConfig.
+     * Default values are given.
+     */
+    public ScanConfig() {
+        this.workerCount = DEFAULT_WORKER_COUNT;
+        this.queueBound = DEFAULT_QUEUE_BOUND;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.indexThreshold = DEFAULT_INDEX_THRESHOLD;
+        this.hashAlgorithm = Hashers.DEFAULT_ALGORITHM;
+        this.readBufferSize = Hashers.DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Constructor for ScanConfig.
+     * @param json JSON string
+     */
+    public ScanConfig(String json) {
+        deserialize(json);
+    }
+
+    /**
+     * Getter for workerCount.
+     * @return number of hashing workers
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Setter for workerCount.
+     * @param workerCount number of hashing workers
+     */
+    public void setWorkerCount(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive");
+        }
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Getter for queueBound.
+     * @return number of files that can wait for or be in hashing at once
+     */
+    public int getQueueBound() {
+        return queueBound;
+    }
+
+    /**
+     * Setter for queueBound.
+     * @param queueBound number of files that can wait for or be in hashing at once
+     */
+    public void setQueueBound(int queueBound) {
+        if (queueBound <= 0) {
+            throw new IllegalArgumentException("queueBound must be positive");
+        }
+        this.queueBound = queueBound;
+    }
+
+    /**
+     * Getter for batchSize.
+     * @return number of rows written to the database at once
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Setter for batchSize.
+     * @param batchSize number of rows written to the database at once
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Getter for indexThreshold.
+     * @return maximum number of files loaded into memory for looking up
+     */
+    public int getIndexThreshold() {
+        return indexThreshold;
+    }
+
+    /**
+     * Setter for indexThreshold.
+     * Files are looked up in the database one by one if there are more files than this.
+     * @param indexThreshold maximum number of files loaded into memory for looking up
+     */
+    public void setIndexThreshold(int indexThreshold) {
+        if (indexThreshold < 0) {
+            throw new IllegalArgumentException("indexThreshold must not be negative");
+        }
+        this.indexThreshold = indexThreshold;
+    }
+
+    /**
+     * Getter for paranoid.
+     * @return true if all files are hashed again even if their size and last modified time are not changed
+     */
+    public boolean isParanoid() {
+        return paranoid;
+    }
+
+    /**
+     * Setter for paranoid.
+     * @param paranoid true to hash all files again even if their size and last modified time are not changed
+     */
+    public void setParanoid(boolean paranoid) {
+        this.paranoid = paranoid;
+    }
+
+    /**
+     * Getter for verify.
+     * @return true if the content of duplicate files is compared byte by byte before they are resolved
+     */
+    public boolean isVerify() {
+        return verify;
+    }
+
+    /**
+     * Setter for verify.
+     * @param verify true to compare the content of duplicate files byte by byte before they are resolved
+     */
+    public void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+
+    /**
+     * Getter for hashAlgorithm.
+     * @return id of the hash algorithm
+     */
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    /**
+     * Setter for hashAlgorithm.
+     * @param hashAlgorithm id of the hash algorithm, one of {@link Hashers#ALGORITHMS}
+     */
+    public void setHashAlgorithm(String hashAlgorithm) {
+        String normalized = Hashers.normalize(hashAlgorithm);
+        if (!Hashers.ALGORITHMS.contains(normalized)) {
+            throw new IllegalArgumentException("Unsupported hash algorithm: " + hashAlgorithm);
+        }
+        this.hashAlgorithm = normalized;
+    }
+
+    /**
+     * Getter for readBufferSize.
+     * @return size of the buffer for reading a file while hashing in bytes
+     */
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    /**
+     * Setter for readBufferSize.
+     * @param readBufferSize size of the buffer for reading a file while hashing in bytes
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        Hashers.checkBufferSize(readBufferSize);
+        this.readBufferSize = readBufferSize;
+    }
+
+    @Override
+    public String serialize() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(this);
+    }
+
+    @Override
+    public void deserialize(String json) {
+        ScanConfig scanConfig = new GsonBuilder().create().fromJson(json, ScanConfig.class);
+        this.workerCount = scanConfig.getWorkerCount();
+        this.queueBound = scanConfig.getQueueBound();
+        this.batchSize = scanConfig.getBatchSize();
+        this.indexThreshold = scanConfig.getIndexThreshold();
+        this.paranoid = scanConfig.isParanoid();
+        this.verify = scanConfig.isVerify();
+        this.hashAlgorithm = scanConfig.getHashAlgorithm();
+        this.readBufferSize = scanConfig.getReadBufferSize();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScanConfig that)) return false;
+        return getWorkerCount() == that.getWorkerCount()
+                && getQueueBound() == that.getQueueBound()
+                && getBatchSize() == that.getBatchSize()
+                && getIndexThreshold() == that.getIndexThreshold()
+                && isParanoid() == that.isParanoid()
+                && isVerify() == that.isVerify()
+                && Objects.equals(getHashAlgorithm(), that.getHashAlgorithm())
+                && getReadBufferSize() == that.getReadBufferSize();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getWorkerCount(), getQueueBound(), getBatchSize(), getIndexThreshold(), isParanoid(), isVerify(), getHashAlgorithm(), getReadBufferSize());
+    }
+}
@@ -0,0 +1,99 @@
+package model.hasher;
+
+import org.bouncycastle.crypto.digests.Blake3Digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * BLAKE3 Hasher.
+ * Cryptographic hash for confirming duplicates with strong collision resistance.
+ * @see Hasher
+ */
+public class Blake3Hasher implements Hasher {
+
+    /**
+     * Algorithm id
+     */
+    public static final String ALGORITHM = "BLAKE3";
+
+    /**
+     * Size of the digest in bits
+     */
+    private static final int DIGEST_BITS = 256;
+
+    /**
+     * Size of the buffer for reading a stream
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final FileBuffers fileBuffers;
+
+    /**
+     * Constructor with default buffer size.
+     */
+    public Blake3Hasher() {
+        this(Hashers.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     * @param bufferSize size of the buffer for reading a file in bytes
+     */
+    public Blake3Hasher(int bufferSize) {
+        this.fileBuffers = new FileBuffers(bufferSize);
+    }
+
+    @Override
+    public Hash makeHash(InputStream stream) {
+        try (stream) {
+            Blake3Digest digest = new Blake3Digest(DIGEST_BITS);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int readCount;
+            while ((readCount = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, readCount);
+            }
+            return digest(digest);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Make hash of the file.
+     * File is read through a channel into the direct buffer of the thread, as {@link Md5Hasher} does.
+     * The digest only takes arrays, so the buffer is copied to it in small chunks.
+     * @param path path of the file
+     * @return hash value
+     */
+    @Override
+    public Hash makeHash(Path path) {
+        try {
+            Blake3Digest digest = new Blake3Digest(DIGEST_BITS);
+            byte[] chunk = new byte[BUFFER_SIZE];
+            fileBuffers.read(path, buffer -> {
+                while (buffer.hasRemaining()) {
+                    int length = Math.min(buffer.remaining(), chunk.length);
+                    buffer.get(chunk, 0, length);
+                    digest.update(chunk, 0, length);
+                }
+            });
+            return digest(digest);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return ALGORITHM;
+    }
+
+    private static Hash digest(Blake3Digest digest) {
+        byte[] result = new byte[digest.getDigestSize()];
+        digest.doFinal(result, 0);
+        return Hash.wrap(result);
+    }
+}
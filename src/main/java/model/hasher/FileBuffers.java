@@ -0,0 +1,48 @@
+package model.hasher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Direct buffers for reading files through a channel, one for each hashing thread.
+ * Direct buffers are expensive to allocate, so they are reused for all files hashed in the thread.
+ */
+final class FileBuffers {
+
+    private final ThreadLocal<ByteBuffer> buffers;
+
+    /**
+     * Constructor
+     * @param bufferSize size of the buffer for reading a file in bytes
+     */
+    FileBuffers(int bufferSize) {
+        Hashers.checkBufferSize(bufferSize);
+        this.buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(bufferSize));
+    }
+
+    /**
+     * Read the file through the buffer of the current thread.
+     * Bytes left in the buffer by the update are kept in front of the next bytes read.
+     * @param path path of the file
+     * @param update consumer of the bytes read, given the buffer flipped for reading
+     * @return buffer flipped for reading the bytes left at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    ByteBuffer read(Path path, Consumer<ByteBuffer> update) throws IOException {
+        ByteBuffer buffer = buffers.get();
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                update.accept(buffer);
+                buffer.compact();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,117 @@
+package model.hasher;
+
+import java.util.Arrays;
+
+/**
+ * Value of a hash kept in binary form.
+ * Hash is converted to hexadecimal only for display.
+ * The bytes are never modified after creation.
+ */
+public final class Hash {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final byte[] bytes;
+
+    private Hash(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("hash cannot be empty");
+        }
+        this.bytes = bytes;
+    }
+
+    /**
+     * Create Hash from a copy of the bytes.
+     * @param bytes bytes of the hash
+     * @return Hash object
+     */
+    public static Hash of(byte[] bytes) {
+        return new Hash(bytes.clone());
+    }
+
+    /**
+     * Create Hash from the bytes, or null if there are no bytes.
+     * @param bytes bytes of the hash, or null
+     * @return Hash object, or null
+     */
+    public static Hash ofNullable(byte[] bytes) {
+        return bytes == null ? null : of(bytes);
+    }
+
+    /**
+     * Create Hash owning the bytes without copying them.
+     * The caller must not modify the bytes afterwards.
+     * @param bytes bytes of the hash
+     * @return Hash object
+     */
+    static Hash wrap(byte[] bytes) {
+        return new Hash(bytes);
+    }
+
+    /**
+     * Create Hash from a hexadecimal string.
+     * @param hex hexadecimal string, case-insensitive
+     * @return Hash object
+     */
+    public static Hash fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("hex string must have an even length: " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("not a hex string: " + hex);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return new Hash(bytes);
+    }
+
+    /**
+     * Get a copy of the bytes.
+     * @return bytes of the hash
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Get number of bytes of the hash.
+     * @return number of bytes
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * Get the hash in uppercase hexadecimal.
+     * @return hexadecimal string
+     */
+    public String toHex() {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Hash hash)) return false;
+        return Arrays.equals(bytes, hash.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+}
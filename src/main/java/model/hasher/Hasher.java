@@ -1,6 +1,10 @@
 package model.hasher;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Hasher interface
@@ -13,5 +17,28 @@ public interface Hasher {
      * @param stream input stream
      * @return hash value
      */
-    String makeHash(InputStream stream);
+    Hash makeHash(InputStream stream);
+
+    /**
+     * Make hash of the file
+     *
+     * @param path path of the file
+     * @return hash value
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    default Hash makeHash(Path path) {
+        try {
+            return makeHash(Files.newInputStream(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get id of the hash algorithm stored with the hash.
+     * Hashes made with different algorithms cannot be compared.
+     *
+     * @return algorithm id
+     */
+    String algorithm();
 }
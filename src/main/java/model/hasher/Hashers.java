@@ -0,0 +1,85 @@
+package model.hasher;
+
+import java.util.List;
+
+/**
+ * Factory of the hashers by algorithm id.
+ */
+public class Hashers {
+
+    /**
+     * Default algorithm id
+     */
+    public static final String DEFAULT_ALGORITHM = Md5Hasher.ALGORITHM;
+
+    /**
+     * All supported algorithm ids
+     */
+    public static final List<String> ALGORITHMS = List.of(
+            Md5Hasher.ALGORITHM,
+            Xxh64Hasher.ALGORITHM,
+            Blake3Hasher.ALGORITHM
+    );
+
+    private Hashers() {
+    }
+
+    /**
+     * Default size of the buffer for reading a file
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Minimum size of the buffer for reading a file
+     */
+    public static final int MIN_BUFFER_SIZE = 64;
+
+    /**
+     * Check the size of the buffer for reading a file.
+     * @param bufferSize size of the buffer in bytes
+     * @throws IllegalArgumentException if the size is below {@link #MIN_BUFFER_SIZE}
+     */
+    public static void checkBufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("bufferSize must be at least " + MIN_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Create hasher of the algorithm with default buffer size.
+     * @param algorithm algorithm id, case-insensitive
+     * @return hasher of the algorithm
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public static Hasher create(String algorithm) {
+        return create(algorithm, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create hasher of the algorithm.
+     * @param algorithm algorithm id, case-insensitive
+     * @param bufferSize size of the buffer for reading a file in bytes
+     * @return hasher of the algorithm
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public static Hasher create(String algorithm, int bufferSize) {
+        return switch (normalize(algorithm)) {
+            case Md5Hasher.ALGORITHM -> new Md5Hasher(bufferSize);
+            case Xxh64Hasher.ALGORITHM -> new Xxh64Hasher(bufferSize);
+            case Blake3Hasher.ALGORITHM -> new Blake3Hasher(bufferSize);
+            default -> throw new IllegalArgumentException("Unsupported hash algorithm: " + algorithm);
+        };
+    }
+
+    /**
+     * Normalize the algorithm id, so it can be compared with the supported ones.
+     * @param algorithm algorithm id, case-insensitive
+     * @return normalized algorithm id
+     */
+    public static String normalize(String algorithm) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Hash algorithm cannot be null");
+        }
+        return algorithm.trim().toUpperCase();
+    }
+}
@@ -3,6 +3,8 @@ package model.hasher;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -13,13 +15,35 @@ import java.security.NoSuchAlgorithmException;
  */
 public class Md5Hasher implements Hasher {
 
+    /**
+     * Algorithm id
+     */
+    public static final String ALGORITHM = "MD5";
+
     /**
      * Buffer size
      */
     private static final int BUFFER_SIZE = 1024;
 
+    private final FileBuffers fileBuffers;
+
+    /**
+     * Constructor with default buffer size.
+     */
+    public Md5Hasher() {
+        this(Hashers.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     * @param fileBufferSize size of the buffer for reading a file in bytes
+     */
+    public Md5Hasher(int fileBufferSize) {
+        this.fileBuffers = new FileBuffers(fileBufferSize);
+    }
+
     @Override
-    public String makeHash(InputStream stream){
+    public Hash makeHash(InputStream stream){
         try {
             final MessageDigest innerHash = MessageDigest.getInstance("MD5");
             byte[] buffer = new byte[BUFFER_SIZE];
@@ -33,14 +57,36 @@ public class Md5Hasher implements Hasher {
                 }
             } while (readCount != -1);
             stream.close();
-            byte[] digest = innerHash.digest();
-            StringBuilder strHash = new StringBuilder();
-            for (byte b : digest) {
-                strHash.append(String.format("%02X", b));
-            }
-            return strHash.toString();
-        } catch (NoSuchAlgorithmException | IOException e) {
+            return Hash.wrap(innerHash.digest());
+        } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
+
+    /**
+     * Make hash of the file.
+     * File is read through a channel into a direct buffer,
+     * which the digest reads without copying it into a heap array.
+     * @param path path of the file
+     * @return hash value
+     */
+    @Override
+    public Hash makeHash(Path path) {
+        try {
+            final MessageDigest innerHash = MessageDigest.getInstance("MD5");
+            fileBuffers.read(path, innerHash::update);
+            return Hash.wrap(innerHash.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return ALGORITHM;
+    }
 }
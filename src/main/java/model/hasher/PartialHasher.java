@@ -0,0 +1,96 @@
+package model.hasher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+
+/**
+ * Hasher for a sample of the file.
+ * Only the head, the tail and a few stripes in the middle of the file are hashed,
+ * so files with the same size can be told apart without reading them entirely.
+ * Files with the same partial hash are not always the same, so the full hash is still needed for them.
+ * @see Hasher
+ */
+public class PartialHasher {
+
+    /**
+     * Default size of each sample in bytes
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * Default number of stripes between the head and the tail
+     */
+    public static final int DEFAULT_STRIPE_COUNT = 2;
+
+    private final Hasher hasher;
+
+    private final int sampleSize;
+
+    private final int stripeCount;
+
+    /**
+     * Constructor with default sample size and stripe count
+     * @param hasher hasher to hash the samples
+     */
+    public PartialHasher(Hasher hasher) {
+        this(hasher, DEFAULT_SAMPLE_SIZE, DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Constructor
+     * @param hasher hasher to hash the samples
+     * @param sampleSize size of each sample in bytes
+     * @param stripeCount number of stripes between the head and the tail
+     */
+    public PartialHasher(Hasher hasher, int sampleSize, int stripeCount) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("sampleSize must be positive");
+        }
+        if (stripeCount < 0) {
+            throw new IllegalArgumentException("stripeCount cannot be negative");
+        }
+        this.hasher = hasher;
+        this.sampleSize = sampleSize;
+        this.stripeCount = stripeCount;
+    }
+
+    /**
+     * Check whether the samples cover the whole file.
+     * Partial hash of such a file is not useful because full hash reads the same amount of data.
+     * @param size size of the file
+     * @return true if the samples cover the whole file
+     */
+    public boolean coversWholeFile(long size) {
+        return size <= (long) sampleSize * (stripeCount + 2);
+    }
+
+    /**
+     * Make hash from the samples of the file
+     * @param path path of the file
+     * @return partial hash value
+     */
+    public Hash makePartialHash(String path) {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            long size = file.length();
+            if (coversWholeFile(size)) {
+                byte[] buffer = new byte[(int) size];
+                file.readFully(buffer);
+                return hasher.makeHash(new ByteArrayInputStream(buffer));
+            }
+            byte[] buffer = new byte[sampleSize * (stripeCount + 2)];
+            int sampleCount = stripeCount + 2;
+            for (int i = 0; i < sampleCount; i++) {
+                // First sample is the head, last sample is the tail,
+                // and stripes are spread evenly between them.
+                long offset = (size - sampleSize) * i / (sampleCount - 1);
+                file.seek(offset);
+                file.readFully(buffer, i * sampleSize, sampleSize);
+            }
+            return hasher.makeHash(new ByteArrayInputStream(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package model.hasher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * XXH64 Hasher.
+ * Non-cryptographic hash much faster than MD5, for finding candidates of duplicates.
+ * @see Hasher
+ */
+public class Xxh64Hasher implements Hasher {
+
+    /**
+     * Algorithm id
+     */
+    public static final String ALGORITHM = "XXH64";
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Size of a stripe consumed by the four accumulators at once
+     */
+    private static final int STRIPE_SIZE = 32;
+
+    /**
+     * Size of the buffer for reading a stream
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final FileBuffers fileBuffers;
+
+    /**
+     * Constructor with default buffer size.
+     */
+    public Xxh64Hasher() {
+        this(Hashers.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     * @param bufferSize size of the buffer for reading a file in bytes
+     */
+    public Xxh64Hasher(int bufferSize) {
+        this.fileBuffers = new FileBuffers(bufferSize);
+    }
+
+    @Override
+    public Hash makeHash(InputStream stream) {
+        try (stream) {
+            State state = new State();
+            byte[] array = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(array);
+            int readCount;
+            while ((readCount = stream.read(array, buffer.position(), buffer.remaining())) != -1) {
+                buffer.position(buffer.position() + readCount);
+                buffer.flip();
+                state.update(buffer);
+                buffer.compact();
+            }
+            buffer.flip();
+            return state.digest(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Make hash of the file.
+     * File is read through a channel into the direct buffer of the thread, as {@link Md5Hasher} does.
+     * @param path path of the file
+     * @return hash value
+     */
+    @Override
+    public Hash makeHash(Path path) {
+        try {
+            State state = new State();
+            return state.digest(fileBuffers.read(path, state::update));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String algorithm() {
+        return ALGORITHM;
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME1 + PRIME4;
+    }
+
+    /**
+     * Accumulators of the hash over the stripes consumed so far.
+     */
+    private static final class State {
+
+        private long v1 = PRIME1 + PRIME2;
+        private long v2 = PRIME2;
+        private long v3 = 0;
+        private long v4 = -PRIME1;
+        private long totalLength = 0;
+
+        /**
+         * Consume all whole stripes of the buffer, leaving the rest in it.
+         * @param buffer buffer flipped for reading
+         */
+        void update(ByteBuffer buffer) {
+            // XXH64 reads input in little endian.
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.remaining() >= STRIPE_SIZE) {
+                v1 = round(v1, buffer.getLong());
+                v2 = round(v2, buffer.getLong());
+                v3 = round(v3, buffer.getLong());
+                v4 = round(v4, buffer.getLong());
+                totalLength += STRIPE_SIZE;
+            }
+        }
+
+        /**
+         * Finish the hash with the last bytes of the input.
+         * @param buffer buffer flipped for reading the bytes shorter than a stripe
+         * @return hash value
+         */
+        Hash digest(ByteBuffer buffer) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            long length = totalLength + buffer.remaining();
+            long hash;
+            if (length >= STRIPE_SIZE) {
+                hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                        + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                hash = mergeRound(hash, v1);
+                hash = mergeRound(hash, v2);
+                hash = mergeRound(hash, v3);
+                hash = mergeRound(hash, v4);
+            } else {
+                hash = PRIME5;
+            }
+            hash += length;
+
+            while (buffer.remaining() >= Long.BYTES) {
+                hash ^= round(0, buffer.getLong());
+                hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+            }
+            if (buffer.remaining() >= Integer.BYTES) {
+                hash ^= (buffer.getInt() & 0xFFFFFFFFL) * PRIME1;
+                hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            }
+            while (buffer.hasRemaining()) {
+                hash ^= (buffer.get() & 0xFFL) * PRIME5;
+                hash = Long.rotateLeft(hash, 11) * PRIME1;
+            }
+
+            hash ^= hash >>> 33;
+            hash *= PRIME2;
+            hash ^= hash >>> 29;
+            hash *= PRIME3;
+            hash ^= hash >>> 32;
+            // Bytes are in big endian, as the canonical form of XXH64.
+            return Hash.wrap(ByteBuffer.allocate(Long.BYTES).putLong(hash).array());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package model.index;
+
+import dao.FileMetadataDao;
+import model.metadata.FileMetadata;
+
+import java.util.List;
+
+/**
+ * Index querying the database for every lookup.
+ * Used when there are too many files to keep in memory.
+ */
+public class DaoMetadataIndex implements MetadataIndex {
+
+    private final FileMetadataDao fileMetadataDao;
+
+    /**
+     * Constructor for DaoMetadataIndex.
+     * @param fileMetadataDao FileMetadataDao object
+     */
+    public DaoMetadataIndex(FileMetadataDao fileMetadataDao) {
+        this.fileMetadataDao = fileMetadataDao;
+    }
+
+    @Override
+    public FileMetadata searchByPath(String path) {
+        List<FileMetadata> result = fileMetadataDao.searchByPath(path);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    @Override
+    public long estimatedMemoryBytes() {
+        return 0;
+    }
+}
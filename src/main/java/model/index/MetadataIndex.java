@@ -0,0 +1,22 @@
+package model.index;
+
+import model.metadata.FileMetadata;
+
+/**
+ * Index for looking up file metadata during a scan.
+ */
+public interface MetadataIndex {
+
+    /**
+     * Search metadata by file path.
+     * @param path file path to search
+     * @return metadata of the file, or null if the file is not in the index
+     */
+    FileMetadata searchByPath(String path);
+
+    /**
+     * Get estimated memory used by the index.
+     * @return estimated memory in bytes
+     */
+    long estimatedMemoryBytes();
+}
@@ -0,0 +1,183 @@
+package model.index;
+
+import dao.FileMetadataDao;
+import model.hasher.Hash;
+import model.metadata.FileMetadata;
+
+import java.util.Arrays;
+
+/**
+ * Index keeping all file metadata in memory.
+ * Metadata is loaded from the database with one query at the start of a scan,
+ * so lookups during the scan do not query the database.
+ * Fields are kept in parallel arrays indexed by slot instead of one object per file,
+ * and slots are found by path in an open-addressing table of ints instead of a map of boxed slots.
+ * This class is not thread safe.
+ */
+public class PreloadedMetadataIndex implements MetadataIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    /**
+     * Slot + 1 of each path at the position of its hash, or 0 for an empty position.
+     * Collisions go to the next positions, and paths are compared with the paths array.
+     */
+    private int[] slotTable;
+
+    private String[] paths;
+    private long[] lastModifiedTimes;
+    private long[] sizes;
+    private Hash[] hashes;
+    private Hash[] partialHashes;
+    private String[] fileKeys;
+    private int count;
+
+    /**
+     * Constructor for an empty PreloadedMetadataIndex.
+     * @param expectedSize expected number of files
+     */
+    public PreloadedMetadataIndex(int expectedSize) {
+        int capacity = Math.max(expectedSize, MIN_CAPACITY);
+        this.slotTable = new int[tableSize(capacity)];
+        this.paths = new String[capacity];
+        this.lastModifiedTimes = new long[capacity];
+        this.sizes = new long[capacity];
+        this.hashes = new Hash[capacity];
+        this.partialHashes = new Hash[capacity];
+        this.fileKeys = new String[capacity];
+    }
+
+    /**
+     * Load all metadata in the database.
+     * @param fileMetadataDao FileMetadataDao object
+     * @param expectedSize number of files in the database, already counted by the caller
+     * @return index with all metadata in the database
+     */
+    public static PreloadedMetadataIndex load(FileMetadataDao fileMetadataDao, long expectedSize) {
+        PreloadedMetadataIndex index = new PreloadedMetadataIndex((int) Math.min(expectedSize, Integer.MAX_VALUE - 8));
+        fileMetadataDao.scanAll(index::put);
+        return index;
+    }
+
+    @Override
+    public FileMetadata searchByPath(String path) {
+        int entry = slotTable[findPosition(path)];
+        return entry == 0 ? null : read(entry - 1);
+    }
+
+    /**
+     * Add or replace metadata of the file.
+     * @param fileMetadata metadata to put
+     */
+    public void put(FileMetadata fileMetadata) {
+        int position = findPosition(fileMetadata.path());
+        int slot;
+        if (slotTable[position] == 0) {
+            slot = count++;
+            ensureCapacity(count);
+            paths[slot] = fileMetadata.path();
+            slotTable[position] = slot + 1;
+            if (count > slotTable.length / 2 && slotTable.length < MAX_TABLE_SIZE) {
+                rehash(slotTable.length * 2);
+            }
+        } else {
+            slot = slotTable[position] - 1;
+        }
+        lastModifiedTimes[slot] = fileMetadata.lastModified();
+        sizes[slot] = fileMetadata.size();
+        hashes[slot] = fileMetadata.hash();
+        partialHashes[slot] = fileMetadata.partialHash();
+        fileKeys[slot] = fileMetadata.fileKey();
+    }
+
+    /**
+     * Get number of files in the index.
+     * @return number of files
+     */
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public long estimatedMemoryBytes() {
+        // Array elements: two longs and four compressed references per slot.
+        long bytes = (long) paths.length * (Long.BYTES * 2 + Integer.BYTES * 4);
+        for (int i = 0; i < count; i++) {
+            bytes += estimateStringBytes(paths[i]) + estimateHashBytes(hashes[i]) + estimateHashBytes(partialHashes[i])
+                    + estimateStringBytes(fileKeys[i]);
+        }
+        bytes += (long) slotTable.length * Integer.BYTES;
+        return bytes;
+    }
+
+    private FileMetadata read(int slot) {
+        return new FileMetadata(
+                paths[slot],
+                lastModifiedTimes[slot],
+                sizes[slot],
+                hashes[slot],
+                partialHashes[slot],
+                fileKeys[slot]
+        );
+    }
+
+    /**
+     * Find the position of the path in the slot table.
+     * @param path path to find
+     * @return position of the path, or the empty position to put it in
+     */
+    private int findPosition(String path) {
+        int mask = slotTable.length - 1;
+        int hash = path.hashCode();
+        // High bits are mixed in, because only the low bits select the position.
+        int position = (hash ^ (hash >>> 16)) & mask;
+        while (slotTable[position] != 0 && !paths[slotTable[position] - 1].equals(path)) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    private void rehash(int tableSize) {
+        slotTable = new int[tableSize];
+        for (int slot = 0; slot < count; slot++) {
+            slotTable[findPosition(paths[slot])] = slot + 1;
+        }
+    }
+
+    /**
+     * Get size of the slot table, so the table is at most half full with the given number of files.
+     * @param capacity number of files
+     * @return power of two size of the table
+     */
+    private static int tableSize(int capacity) {
+        if (capacity >= MAX_TABLE_SIZE / 2) {
+            return MAX_TABLE_SIZE;
+        }
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= paths.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, paths.length + (paths.length >> 1));
+        paths = Arrays.copyOf(paths, capacity);
+        lastModifiedTimes = Arrays.copyOf(lastModifiedTimes, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        partialHashes = Arrays.copyOf(partialHashes, capacity);
+        fileKeys = Arrays.copyOf(fileKeys, capacity);
+    }
+
+    private static long estimateHashBytes(Hash hash) {
+        // Object header, field and backing array of a hash.
+        return hash == null ? 0 : 32 + hash.length();
+    }
+
+    private static long estimateStringBytes(String value) {
+        // Object header, fields and backing array of a Latin-1 string.
+        return value == null ? 0 : 40 + value.length();
+    }
+}
@@ -1,6 +1,7 @@
 package model.metadata;
 
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -43,6 +44,21 @@ public record DirMetadata(
         );
     }
 
+    /**
+     * Create DirMetadata object from the attributes and the content count already read.
+     * @param path path of the directory
+     * @param attributes attributes of the directory
+     * @param contentCount number of contents in the directory
+     * @return DirMetadata object
+     */
+    public static DirMetadata from(Path path, BasicFileAttributes attributes, long contentCount) {
+        return new DirMetadata(
+                path.toString(),
+                attributes.lastModifiedTime().toMillis(),
+                contentCount
+        );
+    }
+
     /**
      * Get actual directory content count.
      * @param path path of the directory
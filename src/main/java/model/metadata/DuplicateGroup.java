@@ -0,0 +1,48 @@
+package model.metadata;
+
+import model.hasher.Hash;
+
+import java.util.List;
+
+/**
+ * Record for storing files with the same size and hash.
+ * Groups are ranked by reclaimable bytes, so the groups freeing the most space are handled first.
+ */
+public record DuplicateGroup(
+        Hash hash,
+        long size,
+        List<FileMetadata> members
+) {
+    /**
+     * Constructor for DuplicateGroup.
+     * @param hash hash shared by the files
+     * @param size size shared by the files
+     * @param members files in the group, including hard links of the same file
+     */
+    public DuplicateGroup {
+        if (hash == null) {
+            throw new IllegalArgumentException("hash cannot be null");
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException("size cannot be negative");
+        }
+        members = List.copyOf(members);
+    }
+
+    /**
+     * Get number of physical files in the group.
+     * Hard links of one file, and reflinks sharing its data, are counted once.
+     * @return number of physical files
+     */
+    public long physicalFileCount() {
+        return members.stream().map(FileMetadata::storageKey).distinct().count();
+    }
+
+    /**
+     * Get bytes freed by keeping only one physical file of the group.
+     * @return reclaimable bytes
+     */
+    public long reclaimableBytes() {
+        return size * Math.max(physicalFileCount() - 1, 0);
+    }
+}
@@ -1,9 +1,12 @@
 package model.metadata;
 
+import model.hasher.Hash;
 import model.hasher.Hasher;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Objects;
 
 /**
@@ -13,14 +16,20 @@ public record FileMetadata(
         String path,
         long lastModified,
         long size,
-        String hash
+        Hash hash,
+        Hash partialHash,
+        String fileKey,
+        String reflinkOf
 ) {
     /**
      * Constructor for FileMetadata.
      * @param path path of the file
      * @param lastModified last modified time of the file
      * @param size size of the file
-     * @param hash hash of the file
+     * @param hash hash of the file, or null if hashing is deferred
+     * @param partialHash hash of the samples of the file, or null if not made
+     * @param fileKey key of the physical file shared by its hard links, or null if not supported
+     * @param reflinkOf storage key of the file whose data this reflink shares, or null if not a reflink
      */
     public FileMetadata {
         if (path == null) {
@@ -32,29 +41,151 @@ public record FileMetadata(
         if (size < 0) {
             throw new IllegalArgumentException("size cannot be negative");
         }
-        if (hash == null) {
-            throw new IllegalArgumentException("hash cannot be null");
+    }
+
+    /**
+     * Constructor for FileMetadata of a file that is not a reflink.
+     * @param path path of the file
+     * @param lastModified last modified time of the file
+     * @param size size of the file
+     * @param hash hash of the file, or null if hashing is deferred
+     * @param partialHash hash of the samples of the file, or null if not made
+     * @param fileKey key of the physical file shared by its hard links, or null if not supported
+     */
+    public FileMetadata(String path, long lastModified, long size, Hash hash, Hash partialHash, String fileKey) {
+        this(path, lastModified, size, hash, partialHash, fileKey, null);
+    }
+
+    /**
+     * Constructor for FileMetadata without file key.
+     * @param path path of the file
+     * @param lastModified last modified time of the file
+     * @param size size of the file
+     * @param hash hash of the file, or null if hashing is deferred
+     * @param partialHash hash of the samples of the file, or null if not made
+     */
+    public FileMetadata(String path, long lastModified, long size, Hash hash, Hash partialHash) {
+        this(path, lastModified, size, hash, partialHash, null);
+    }
+
+    /**
+     * Constructor for FileMetadata without partial hash.
+     * @param path path of the file
+     * @param lastModified last modified time of the file
+     * @param size size of the file
+     * @param hash hash of the file, or null if hashing is deferred
+     */
+    public FileMetadata(String path, long lastModified, long size, Hash hash) {
+        this(path, lastModified, size, hash, null);
+    }
+
+    /**
+     * Create FileMetadata object without hash.
+     * Hashing is deferred until another file with the same size is found.
+     * @param path path of the file
+     * @return FileMetadata object
+     */
+    public static FileMetadata create(String path) {
+        try {
+            Path filePath = Path.of(path);
+            return from(filePath, Files.readAttributes(filePath, BasicFileAttributes.class), null);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Create FileMetadata object from the attributes already read.
+     * @param path path of the file
+     * @param attributes attributes of the file
+     * @param hash hash of the file, or null if hashing is deferred
+     * @return FileMetadata object
+     */
+    public static FileMetadata from(Path path, BasicFileAttributes attributes, Hash hash) {
+        Object fileKey = attributes.fileKey();
+        return new FileMetadata(
+                path.toString(),
+                attributes.lastModifiedTime().toMillis(),
+                attributes.size(),
+                hash,
+                null,
+                fileKey == null ? null : fileKey.toString()
+        );
+    }
+
     /**
      * Create FileMetadata object.
      * @param path path of the file
+     * @param hasher hasher to make hash of the file
      * @return FileMetadata object
      */
     public static FileMetadata create(String path, Hasher hasher) {
         try {
-            return new FileMetadata(
-                    path,
-                    getActualFileModifiedTime(path),
-                    getActualFileSize(path),
-                    hasher.makeHash(new FileInputStream(path))
+            Path filePath = Path.of(path);
+            return from(
+                    filePath,
+                    Files.readAttributes(filePath, BasicFileAttributes.class),
+                    hasher.makeHash(filePath)
             );
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Copy the metadata with the hash.
+     * @param newHash hash of the file
+     * @return FileMetadata object with the hash
+     */
+    public FileMetadata withHash(Hash newHash) {
+        return new FileMetadata(path, lastModified, size, newHash, partialHash, fileKey, reflinkOf);
+    }
+
+    /**
+     * Copy the metadata with the partial hash.
+     * @param newPartialHash hash of the samples of the file
+     * @return FileMetadata object with the partial hash
+     */
+    public FileMetadata withPartialHash(Hash newPartialHash) {
+        return new FileMetadata(path, lastModified, size, hash, newPartialHash, fileKey, reflinkOf);
+    }
+
+    /**
+     * Copy the metadata as a reflink of another file.
+     * @param newReflinkOf storage key of the file whose data is shared
+     * @return FileMetadata object marked as the reflink
+     */
+    public FileMetadata withReflinkOf(String newReflinkOf) {
+        return new FileMetadata(path, lastModified, size, hash, partialHash, fileKey, newReflinkOf);
+    }
+
+    /**
+     * Get key identifying the physical file.
+     * Hard links of the same file have the same key, so they are not duplicates of each other.
+     * @return file key, or path if the file key is not known
+     */
+    public String physicalKey() {
+        return fileKey != null ? fileKey : path;
+    }
+
+    /**
+     * Get key identifying the stored data of the file.
+     * A reflink has its own physical file but shares the data of the file it was made from,
+     * so replacing it again frees no space.
+     * @return storage key of the reflinked file, or the physical key if not a reflink
+     */
+    public String storageKey() {
+        return reflinkOf != null ? reflinkOf : physicalKey();
+    }
+
+    /**
+     * Check whether hashing of the file is deferred.
+     * @return true if the file has no hash yet
+     */
+    public boolean isHashDeferred() {
+        return hash == null;
+    }
+
     /**
      * Get actual file hash.
      * @param path path of the file
@@ -85,12 +216,12 @@ public record FileMetadata(
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof FileMetadata fileMetadata)) return false;
-        return lastModified == fileMetadata.lastModified && size == fileMetadata.size && Objects.equals(path, fileMetadata.path) && Objects.equals(hash, fileMetadata.hash);
+        return lastModified == fileMetadata.lastModified && size == fileMetadata.size && Objects.equals(path, fileMetadata.path) && Objects.equals(hash, fileMetadata.hash) && Objects.equals(partialHash, fileMetadata.partialHash) && Objects.equals(fileKey, fileMetadata.fileKey) && Objects.equals(reflinkOf, fileMetadata.reflinkOf);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(path, lastModified, size, hash);
+        return Objects.hash(path, lastModified, size, hash, partialHash, fileKey, reflinkOf);
     }
 
     @Override
@@ -0,0 +1,29 @@
+package model.metadata;
+
+/**
+ * Record for storing a run of a scan.
+ * Ids are given in increasing order, so rows stamped with an older id were not seen by a newer scan.
+ * @param id id of the scan stamped on the rows it touches
+ * @param rootPath absolute root path of the scan
+ * @param startedAt time the scan started in milliseconds
+ */
+public record ScanSession(
+        long id,
+        String rootPath,
+        long startedAt
+) {
+    /**
+     * Constructor for ScanSession.
+     * @param id id of the scan stamped on the rows it touches
+     * @param rootPath absolute root path of the scan
+     * @param startedAt time the scan started in milliseconds
+     */
+    public ScanSession {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be positive");
+        }
+        if (rootPath == null) {
+            throw new IllegalArgumentException("rootPath cannot be null");
+        }
+    }
+}
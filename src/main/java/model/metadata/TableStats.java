@@ -0,0 +1,36 @@
+package model.metadata;
+
+/**
+ * Record for storing the size of a table and its indexes.
+ * Sizes are estimated by the database.
+ * @param tableName name of the table
+ * @param rowCount number of rows in the table
+ * @param dataBytes bytes used by the rows, or -1 if unknown
+ * @param indexBytes bytes used by the indexes, or -1 if unknown or included in the data bytes
+ */
+public record TableStats(
+        String tableName,
+        long rowCount,
+        long dataBytes,
+        long indexBytes
+) {
+    /**
+     * Constructor for TableStats.
+     * @param tableName name of the table
+     * @param rowCount number of rows in the table
+     * @param dataBytes bytes used by the rows, or -1 if unknown
+     * @param indexBytes bytes used by the indexes, or -1 if unknown or included in the data bytes
+     */
+    public TableStats {
+        if (tableName == null) {
+            throw new IllegalArgumentException("tableName cannot be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return tableName + ": " + rowCount + " rows, "
+                + (dataBytes < 0 ? "unknown" : dataBytes) + " data bytes, "
+                + (indexBytes < 0 ? "unknown" : indexBytes) + " index bytes";
+    }
+}
@@ -0,0 +1,215 @@
+package model.resolver;
+
+import model.metadata.DuplicateGroup;
+import model.metadata.FileMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for verifying that the files of a duplicate group have the same content byte by byte.
+ * All files of a group are read in lockstep, one buffer of each file at a time,
+ * and the buffers are compared with Arrays.mismatch,
+ * so each file is read once however many files the group has.
+ * Files whose content differs are split into separate groups, and files that cannot be read are left out,
+ * so a hash collision never leads to deleting a file that is not a duplicate.
+ */
+public class ContentVerifier {
+
+    /**
+     * Maximum number of files open at once.
+     * Larger groups are verified in parts, which can only leave identical files in separate groups.
+     */
+    static final int MAX_OPEN_FILES = 256;
+
+    /**
+     * Total size of the buffers of the files read at once, shared by the files of a part.
+     * Groups are verified concurrently, so the buffers of a large group must not take the whole read buffer each.
+     */
+    static final int READ_BUDGET = 16 * 1024 * 1024;
+
+    private final int bufferSize;
+
+    /**
+     * Constructor for ContentVerifier.
+     * @param bufferSize maximum size of the buffer for reading each file
+     */
+    public ContentVerifier(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Verify the content of the files in the group.
+     * @param group duplicate group to verify
+     * @return groups of the files with the same content, each with more than one physical file
+     */
+    public List<DuplicateGroup> verify(DuplicateGroup group) {
+        // Hard links share the content, so only one link of each physical file is read.
+        Map<String, List<FileMetadata>> linksByKey = new LinkedHashMap<>();
+        for (FileMetadata member : group.members()) {
+            linksByKey.computeIfAbsent(member.physicalKey(), k -> new ArrayList<>()).add(member);
+        }
+        List<List<FileMetadata>> physicalFiles = new ArrayList<>(linksByKey.values());
+
+        List<DuplicateGroup> result = new ArrayList<>();
+        for (int i = 0; i < physicalFiles.size(); i += MAX_OPEN_FILES) {
+            List<List<FileMetadata>> part = physicalFiles.subList(i, Math.min(i + MAX_OPEN_FILES, physicalFiles.size()));
+            for (List<List<FileMetadata>> identical : compareInLockstep(part)) {
+                if (identical.size() > 1) {
+                    List<FileMetadata> members = new ArrayList<>();
+                    identical.forEach(members::addAll);
+                    result.add(new DuplicateGroup(group.hash(), group.size(), members));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the files in lockstep and split them into classes of identical content.
+     * @param physicalFiles links of each physical file
+     * @return classes of physical files with identical content
+     */
+    private List<List<List<FileMetadata>>> compareInLockstep(List<List<FileMetadata>> physicalFiles) {
+        List<Reader> readers = new ArrayList<>(physicalFiles.size());
+        int readerBufferSize = readerBufferSize(physicalFiles.size());
+        try {
+            for (List<FileMetadata> links : physicalFiles) {
+                try {
+                    readers.add(new Reader(links, readerBufferSize));
+                } catch (IOException e) {
+                    // The file is removed or not readable, so it cannot be verified.
+                }
+            }
+            List<List<Reader>> classes = new ArrayList<>();
+            if (readers.size() > 1) {
+                classes.add(readers);
+            }
+            boolean finished = false;
+            while (!finished && !classes.isEmpty()) {
+                finished = true;
+                List<List<Reader>> nextClasses = new ArrayList<>();
+                for (List<Reader> readerClass : classes) {
+                    for (List<Reader> split : readAndSplit(readerClass)) {
+                        // A file without another file of the same content is not read anymore.
+                        if (split.size() > 1) {
+                            nextClasses.add(split);
+                            finished &= split.get(0).isEnd();
+                        }
+                    }
+                }
+                classes = nextClasses;
+            }
+            List<List<List<FileMetadata>>> result = new ArrayList<>(classes.size());
+            for (List<Reader> readerClass : classes) {
+                result.add(readerClass.stream().map(reader -> reader.links).toList());
+            }
+            return result;
+        } finally {
+            for (Reader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Get size of the buffer of each file, so the buffers of the files read at once fit in the budget.
+     * @param fileCount number of files read at once
+     * @return buffer size of each file
+     */
+    int readerBufferSize(int fileCount) {
+        return Math.min(bufferSize, Math.max(READ_BUDGET / Math.max(fileCount, 1), 1));
+    }
+
+    /**
+     * Read the next buffer of each file in the class and split the class by the read bytes.
+     * @param readerClass readers of files identical so far
+     * @return classes of readers identical up to the read bytes
+     */
+    private static List<List<Reader>> readAndSplit(List<Reader> readerClass) {
+        List<List<Reader>> splits = new ArrayList<>();
+        for (Reader reader : readerClass) {
+            if (!reader.read()) {
+                continue;
+            }
+            List<Reader> matching = null;
+            for (List<Reader> split : splits) {
+                if (split.get(0).isSameChunk(reader)) {
+                    matching = split;
+                    break;
+                }
+            }
+            if (matching == null) {
+                matching = new ArrayList<>();
+                splits.add(matching);
+            }
+            matching.add(reader);
+        }
+        return splits;
+    }
+
+    /**
+     * Reader of one physical file with its own buffer.
+     */
+    private static final class Reader {
+
+        private final List<FileMetadata> links;
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        private int length;
+
+        private Reader(List<FileMetadata> links, int bufferSize) throws IOException {
+            this.links = links;
+            this.channel = FileChannel.open(Path.of(links.get(0).path()), StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+        /**
+         * Read the next chunk, filling the buffer unless the end of the file is reached.
+         * @return true if the chunk is read, false if the file cannot be read anymore
+         */
+        private boolean read() {
+            buffer.clear();
+            try {
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer is full or the end of the file.
+                }
+            } catch (IOException e) {
+                return false;
+            }
+            length = buffer.position();
+            return true;
+        }
+
+        private boolean isEnd() {
+            return length < buffer.capacity();
+        }
+
+        private boolean isSameChunk(Reader other) {
+            return length == other.length
+                    && Arrays.mismatch(buffer.array(), 0, length, other.buffer.array(), 0, length) < 0;
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
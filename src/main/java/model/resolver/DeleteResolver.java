@@ -0,0 +1,27 @@
+package model.resolver;
+
+import model.metadata.FileMetadata;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Resolver deleting the duplicate file.
+ * The duplicate file is not deleted if the original file is removed or changed since it was stored.
+ * A duplicate file already removed by someone else is treated as deleted.
+ */
+public class DeleteResolver implements DuplicateResolver {
+
+    @Override
+    public FileMetadata resolve(FileMetadata original, FileMetadata duplicate) throws IOException {
+        DuplicateResolver.checkOriginal(original);
+        Files.deleteIfExists(Path.of(duplicate.path()));
+        return null;
+    }
+
+    @Override
+    public String name() {
+        return "delete";
+    }
+}
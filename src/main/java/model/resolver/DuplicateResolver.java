@@ -0,0 +1,52 @@
+package model.resolver;
+
+import model.metadata.FileMetadata;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Interface for resolving a duplicate file, e.g. by deleting it.
+ * Resolvers are called concurrently for different files, so they must be thread safe.
+ */
+public interface DuplicateResolver {
+
+    /**
+     * Resolve a duplicate of the original file.
+     * @param original file kept in the duplicate group
+     * @param duplicate file to resolve
+     * @return metadata of the duplicate path after resolving, or null if the file is removed
+     * @throws IOException if the file cannot be resolved
+     */
+    FileMetadata resolve(FileMetadata original, FileMetadata duplicate) throws IOException;
+
+    /**
+     * Check that the original file is still as it was stored.
+     * Duplicate groups are read from the database, so the original may be removed or rewritten since the scan,
+     * and the duplicate may then be the last copy of the content.
+     * @param original file kept in the duplicate group
+     * @throws IOException if the original file is removed, or its size or last modified time is changed
+     */
+    static void checkOriginal(FileMetadata original) throws IOException {
+        Path originalPath = Path.of(original.path());
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(originalPath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new IOException("original file is removed: " + originalPath, e);
+        }
+        if (attributes.size() != original.size()
+                || attributes.lastModifiedTime().toMillis() != original.lastModified()) {
+            throw new IOException("original file is changed: " + originalPath);
+        }
+    }
+
+    /**
+     * Get name of the action for reports.
+     * @return name of the action
+     */
+    String name();
+}
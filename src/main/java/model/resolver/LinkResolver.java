@@ -0,0 +1,137 @@
+package model.resolver;
+
+import model.metadata.FileMetadata;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolver replacing the duplicate file with a link to the original file.
+ * The link is made next to the duplicate file with a temporary name and renamed over the duplicate file atomically,
+ * so the path always has either the old or the new file.
+ * A copy-on-write reflink is used if the file system supports it,
+ * so the files can still be changed independently. Otherwise a hard link is used.
+ * The reflink is stored as a reflink of the original file, so it is not counted as a duplicate again.
+ * The owner and permissions of the duplicate file are not kept:
+ * a hard link has those of the original file, and a reflink those of a new file made by this process.
+ */
+public class LinkResolver implements DuplicateResolver {
+
+    private final boolean reflink;
+
+    /**
+     * Errors of cp meaning that the file system cannot make a reflink, rather than that this file failed.
+     */
+    private static final List<String> UNSUPPORTED_ERRORS = List.of(
+            "Operation not supported", "Invalid cross-device link", "Inappropriate ioctl for device");
+
+    /**
+     * File stores where reflinks are not supported, so they are not tried again.
+     */
+    private final Set<FileStore> unsupportedStores = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor for LinkResolver using reflinks where supported.
+     */
+    public LinkResolver() {
+        this(true);
+    }
+
+    /**
+     * Constructor for LinkResolver.
+     * @param reflink true to use reflinks where supported, false to always use hard links
+     */
+    public LinkResolver(boolean reflink) {
+        this.reflink = reflink;
+    }
+
+    @Override
+    public FileMetadata resolve(FileMetadata original, FileMetadata duplicate) throws IOException {
+        Path originalPath = Path.of(original.path());
+        Path duplicatePath = Path.of(duplicate.path());
+        DuplicateResolver.checkOriginal(original);
+        Path tempPath = duplicatePath.resolveSibling(
+                "." + duplicatePath.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        boolean reflinked;
+        try {
+            reflinked = reflink && makeReflink(originalPath, tempPath);
+            if (!reflinked) {
+                Files.createLink(tempPath, originalPath);
+            }
+            Files.move(tempPath, duplicatePath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        // Content is the same, so the hashes of the duplicate file are kept.
+        FileMetadata linked = FileMetadata.from(
+                duplicatePath,
+                Files.readAttributes(duplicatePath, BasicFileAttributes.class),
+                duplicate.hash()
+        );
+        // A hard link is the original file, so it shares the data of whatever the original file shares.
+        return linked.withPartialHash(duplicate.partialHash())
+                .withReflinkOf(reflinked ? original.storageKey() : original.reflinkOf());
+    }
+
+    /**
+     * Make a reflink of the original file with cp, which uses the clone ioctl of the file system.
+     * @param originalPath path of the original file
+     * @param tempPath path of the reflink to make
+     * Only a failure meaning that the file store cannot make reflinks stops the later files from trying,
+     * so a failure of one file, e.g. a denied permission, does not turn off reflinks for the others.
+     * @return true if the reflink is made, false if it cannot be made
+     * @throws IOException if the file store cannot be read
+     */
+    private boolean makeReflink(Path originalPath, Path tempPath) throws IOException {
+        FileStore fileStore = Files.getFileStore(originalPath);
+        // Links cannot be made across file stores.
+        if (!fileStore.equals(Files.getFileStore(tempPath.getParent())) || unsupportedStores.contains(fileStore)) {
+            return false;
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(
+                "cp", "--reflink=always", originalPath.toString(), tempPath.toString())
+                .redirectErrorStream(true);
+        // Error messages are matched in English.
+        processBuilder.environment().put("LC_ALL", "C");
+        try {
+            Process process = processBuilder.start();
+            String output = new String(process.getInputStream().readAllBytes());
+            if (process.waitFor() == 0) {
+                return true;
+            }
+            if (isUnsupported(output)) {
+                unsupportedStores.add(fileStore);
+            }
+        } catch (IOException e) {
+            // cp is not available.
+            unsupportedStores.add(fileStore);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        Files.deleteIfExists(tempPath);
+        return false;
+    }
+
+    /**
+     * Check whether the output of a failed cp means that the file system cannot make reflinks.
+     * @param output output of cp
+     * @return true if reflinks are not supported, false if only this copy failed
+     */
+    static boolean isUnsupported(String output) {
+        return UNSUPPORTED_ERRORS.stream().anyMatch(output::contains);
+    }
+
+    @Override
+    public String name() {
+        return "link";
+    }
+}
@@ -0,0 +1,214 @@
+package model.searcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator walking a file tree lazily.
+ * Entries are read from the file system only when they are requested,
+ * so only the directories from the root to the current entry are kept open.
+ * Attributes of each entry are read only once.
+ * Directories are given after their contents with the number of entries counted while walking,
+ * and the root itself is not given.
+ * Symbolic links and special files are skipped, because deleting them does not remove any duplicated content.
+ * A sorted walk gives the entries of each directory in the order of their names,
+ * so a walk stopped in the middle can be resumed after the last entry given.
+ */
+public class FileTreeWalker implements Iterator<WalkEntry>, Closeable {
+
+    private final Predicate<WalkEntry> filter;
+
+    private final boolean sorted;
+
+    private final Deque<DirectoryFrame> frames;
+
+    private WalkEntry next;
+
+    private static class DirectoryFrame {
+        private final WalkEntry entry;
+        private final DirectoryStream<Path> stream;
+        private Iterator<Path> iterator;
+        private long contentCount;
+
+        private DirectoryFrame(WalkEntry entry, DirectoryStream<Path> stream) {
+            this.entry = entry;
+            this.stream = stream;
+            this.iterator = stream == null ? null : stream.iterator();
+        }
+
+        private DirectoryFrame(WalkEntry entry, List<Path> children) {
+            this.entry = entry;
+            this.stream = null;
+            this.iterator = children.iterator();
+        }
+    }
+
+    /**
+     * Constructor walking all files and directories.
+     * @param rootPath root path to walk
+     */
+    public FileTreeWalker(String rootPath) {
+        this(rootPath, entry -> true);
+    }
+
+    /**
+     * Constructor
+     * @param rootPath root path to walk
+     * @param filter entries that do not match are not given, and directories that do not match are not walked into
+     */
+    public FileTreeWalker(String rootPath, Predicate<WalkEntry> filter) {
+        this(rootPath, filter, false);
+    }
+
+    /**
+     * Constructor
+     * Names in one directory are kept in memory while it is walked if the walk is sorted.
+     * @param rootPath root path to walk
+     * @param filter entries that do not match are not given, and directories that do not match are not walked into
+     * @param sorted true to give the entries of each directory in the order of their names
+     */
+    public FileTreeWalker(String rootPath, Predicate<WalkEntry> filter, boolean sorted) {
+        this.filter = filter;
+        this.sorted = sorted;
+        this.frames = new ArrayDeque<>();
+        openDirectory(Path.of(rootPath).toAbsolutePath(), null);
+    }
+
+    /**
+     * Get stream of the entries.
+     * The stream must be closed to close the open directories when it is not consumed to the end.
+     * @return stream of the entries
+     */
+    public Stream<WalkEntry> stream() {
+        Spliterator<WalkEntry> spliterator = Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public WalkEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        WalkEntry entry = next;
+        next = null;
+        return entry;
+    }
+
+    private WalkEntry advance() {
+        while (!frames.isEmpty()) {
+            DirectoryFrame frame = frames.peek();
+            Path child;
+            try {
+                if (frame.iterator == null || !frame.iterator.hasNext()) {
+                    closeDirectory();
+                    if (frame.entry == null) {
+                        continue;
+                    }
+                    return new WalkEntry(frame.entry.path(), frame.entry.attributes(), frame.contentCount);
+                }
+                child = frame.iterator.next();
+                frame.contentCount++;
+            } catch (DirectoryIteratorException e) {
+                // Rest of the directory cannot be read.
+                frame.iterator = null;
+                continue;
+            }
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                // The entry may be removed while walking.
+                continue;
+            }
+            if (!attributes.isDirectory() && !attributes.isRegularFile()) {
+                continue;
+            }
+
+            WalkEntry entry = new WalkEntry(child, attributes, 0);
+            if (!filter.test(entry)) {
+                continue;
+            }
+            if (entry.isDirectory()) {
+                // Directory is given after its contents.
+                openDirectory(child, entry);
+                continue;
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    private void openDirectory(Path dir, WalkEntry entry) {
+        if (sorted) {
+            frames.push(new DirectoryFrame(entry, readSortedChildren(dir)));
+            return;
+        }
+        DirectoryStream<Path> stream = null;
+        try {
+            stream = Files.newDirectoryStream(dir);
+        } catch (IOException e) {
+            // Directory that cannot be read is treated as empty.
+        }
+        frames.push(new DirectoryFrame(entry, stream));
+    }
+
+    private static List<Path> readSortedChildren(Path dir) {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                children.add(child);
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Directory that cannot be read is treated as empty, or as the entries read so far.
+        }
+        children.sort(Comparator.comparing(Path::getFileName));
+        return children;
+    }
+
+    private void closeDirectory() {
+        DirectoryFrame frame = frames.pop();
+        if (frame.stream == null) {
+            return;
+        }
+        try {
+            frame.stream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        while (!frames.isEmpty()) {
+            closeDirectory();
+        }
+    }
+}
@@ -1,74 +1,146 @@
 package model.searcher;
 
-import java.io.File;
-import java.util.*;
+import model.metadata.DirMetadata;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
- * Search modified contents
+ * Search modified contents.
+ * Directories are compared with their stored metadata to decide how their files are checked.
+ * A directory with the same last modified time and content count as stored has the same entries,
+ * so only its files modified after the timestamp are given, and the directory itself is not given.
+ * All files of a changed or new directory are given, because a file moved in keeps its old modified time.
+ * Every directory is still walked, because a file edited in place does not change the modified time of its directory.
  */
 public class ModifiedContentSearch {
 
-    /**
-     * List of directory paths
-     */
-    private final List<String> dirPaths;
+    private final String rootPath;
 
-    /**
-     * List of file paths
-     */
-    private final List<String> filePaths;
+    private final long timestamp;
+
+    private final Map<String, DirMetadata> storedDirectories;
 
     /**
      * Constructor
-     * Files and directories modified after the timestamp are searched recursively when this object is created.
+     * No directory is known to be unchanged, so all files are given.
      * @param rootPath root path to search
      * @param timestamp timestamp to compare
      */
     public ModifiedContentSearch(String rootPath, long timestamp) {
-        this.dirPaths = new LinkedList<>();
-        this.filePaths = new LinkedList<>();
-        File root = new File(rootPath);
-        searchByTime(root, timestamp);
+        this(rootPath, timestamp, Map.of());
     }
 
     /**
-     * Search by time
-     * @param currentDir current directory
+     * Constructor
+     * Files and directories are searched lazily when they are requested.
+     * @param rootPath root path to search
      * @param timestamp timestamp to compare
+     * @param storedDirectories stored metadata of the directories by path
      */
-    private void searchByTime(File currentDir, long timestamp) {
-        File[] files = currentDir.listFiles();
-        if (files == null) {
-            return;
-        }
-        for (File file : files) {
-            long lastModified = file.lastModified();
-            if (file.isDirectory()) {
-                if (lastModified > timestamp) {
-                    this.dirPaths.add(file.getAbsolutePath());
-                    searchByTime(file, timestamp);
+    public ModifiedContentSearch(String rootPath, long timestamp, Map<String, DirMetadata> storedDirectories) {
+        this.rootPath = rootPath;
+        this.timestamp = timestamp;
+        this.storedDirectories = storedDirectories;
+    }
+
+    /**
+     * Get stream of changed directories and of files that may be changed.
+     * The stream must be closed when it is not consumed to the end.
+     * @return stream of the entries
+     */
+    public Stream<WalkEntry> stream() {
+        // Whether all files are given, for each directory from the root to the current entry.
+        Map<Path, Boolean> allFilesGiven = new HashMap<>();
+        // Root is not stored, so all of its files are checked.
+        allFilesGiven.put(Path.of(rootPath).toAbsolutePath(), true);
+        FileTreeWalker walker = new FileTreeWalker(rootPath, entry -> {
+            if (entry.isDirectory()) {
+                // Content count is not known before the directory is walked, so only the modified time is compared here.
+                DirMetadata stored = storedDirectories.get(entry.path().toString());
+                allFilesGiven.put(entry.path(), stored == null || stored.lastModified() != entry.lastModified());
+                return true;
+            }
+            return entry.lastModified() > timestamp || allFilesGiven.getOrDefault(entry.path().getParent(), true);
+        });
+        return walker.stream().flatMap(entry -> {
+            if (!entry.isDirectory()) {
+                return Stream.of(entry);
+            }
+            boolean allGiven = allFilesGiven.remove(entry.path());
+            DirMetadata stored = storedDirectories.get(entry.path().toString());
+            if (stored != null
+                    && stored.lastModified() == entry.lastModified()
+                    && stored.contentCount() == entry.contentCount()) {
+                return Stream.empty();
+            }
+            if (allGiven) {
+                return Stream.of(entry);
+            }
+            // Entries changed without changing the modified time, e.g. within its resolution,
+            // so the files skipped by their modified time are given too.
+            return Stream.concat(searchOldFiles(entry.path()).stream(), Stream.of(entry));
+        });
+    }
+
+    /**
+     * Search files in the directory not modified after the timestamp.
+     * @param dir directory to search
+     * @return entries of the files
+     */
+    private List<WalkEntry> searchOldFiles(Path dir) {
+        List<WalkEntry> result = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+            for (Path child : children) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue;
                 }
-            } else {
-                if (lastModified > timestamp) {
-                    this.filePaths.add(file.getAbsolutePath());
+                if (attributes.isRegularFile() && attributes.lastModifiedTime().toMillis() <= timestamp) {
+                    result.add(new WalkEntry(child, attributes, 0));
                 }
             }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Directory is removed after it is walked.
         }
+        return result;
     }
 
     /**
      * Get list of directory paths
+     * The whole tree is walked and kept in memory, so use stream() for large trees.
      * @return list of directory paths
      */
     public List<String> getDirPaths() {
-        return dirPaths;
+        try (Stream<WalkEntry> entries = stream()) {
+            return entries.filter(WalkEntry::isDirectory)
+                    .map(entry -> entry.path().toString())
+                    .toList();
+        }
     }
 
     /**
      * Get list of file paths
+     * The whole tree is walked and kept in memory, so use stream() for large trees.
      * @return list of file paths
      */
     public List<String> getFilePaths() {
-        return filePaths;
+        try (Stream<WalkEntry> entries = stream()) {
+            return entries.filter(entry -> !entry.isDirectory())
+                    .map(entry -> entry.path().toString())
+                    .toList();
+        }
     }
-}
\ No newline at end of file
+}
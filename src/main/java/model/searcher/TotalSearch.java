@@ -1,58 +1,93 @@
 package model.searcher;
 
-import java.io.File;
-import java.util.LinkedList;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Search all files and directories recursively
  */
 public class TotalSearch {
 
-    private final List<String> dirPaths;
-
-    private final List<String> filePaths;
+    private final String rootPath;
 
     /**
      * Constructor
-     * Files and directories modified after the timestamp are searched recursively when this object is created.
+     * Files and directories are searched lazily when they are requested.
      * @param rootPath root path to search
      */
     public TotalSearch(String rootPath) {
-        this.dirPaths = new LinkedList<>();
-        this.filePaths = new LinkedList<>();
-        File root = new File(rootPath);
-        searchAll(root);
+        this.rootPath = rootPath;
     }
 
-    private void searchAll(File root) {
-        File[] files = root.listFiles();
-        if (files == null) {
-            return;
-        }
-        for (File file : files) {
-            if (file.isDirectory()) {
-                this.dirPaths.add(file.getAbsolutePath());
-                searchAll(file);
-            } else {
-                this.filePaths.add(file.getAbsolutePath());
+    /**
+     * Get stream of all files and directories in the order of their names.
+     * The stream must be closed when it is not consumed to the end.
+     * @return stream of the entries
+     */
+    public Stream<WalkEntry> stream() {
+        return sortedStream(null);
+    }
+
+    /**
+     * Get stream of all files and directories in the order of their names,
+     * starting after the given entry of an earlier sorted walk.
+     * Directories containing the entry are given again, because they are given after their contents.
+     * The stream must be closed when it is not consumed to the end.
+     * @param resumeAfter absolute path of the last entry already handled, or null to walk from the start
+     * @return stream of the entries
+     */
+    public Stream<WalkEntry> sortedStream(String resumeAfter) {
+        Predicate<WalkEntry> filter = resumeAfter == null ? entry -> true : isAfter(Path.of(resumeAfter));
+        return new FileTreeWalker(rootPath, filter, true).stream();
+    }
+
+    /**
+     * Make filter of the entries after the given entry in a sorted walk.
+     * Entries are compared by their names at each level, in the same order as the sorted walk.
+     * @param lastPath absolute path of the last entry already handled
+     * @return filter of the entries to give, including directories containing the last entry to walk into them
+     */
+    static Predicate<WalkEntry> isAfter(Path lastPath) {
+        return entry -> {
+            Path path = entry.path();
+            Path parent = path.getParent();
+            // Directory not containing the last entry is walked into only if it comes after the last entry.
+            if (parent == null || !lastPath.startsWith(parent) || lastPath.getNameCount() <= parent.getNameCount()) {
+                return true;
             }
-        }
+            int order = path.getFileName().compareTo(lastPath.getName(parent.getNameCount()));
+            if (order != 0) {
+                return order > 0;
+            }
+            return !path.equals(lastPath);
+        };
     }
 
     /**
      * Get list of directory paths
+     * The whole tree is walked and kept in memory, so use stream() for large trees.
      * @return list of directory paths
      */
     public List<String> getDirPaths() {
-        return dirPaths;
+        try (Stream<WalkEntry> entries = stream()) {
+            return entries.filter(WalkEntry::isDirectory)
+                    .map(entry -> entry.path().toString())
+                    .toList();
+        }
     }
 
     /**
      * Get list of file paths
+     * The whole tree is walked and kept in memory, so use stream() for large trees.
      * @return list of file paths
      */
     public List<String> getFilePaths() {
-        return filePaths;
+        try (Stream<WalkEntry> entries = stream()) {
+            return entries.filter(entry -> !entry.isDirectory())
+                    .map(entry -> entry.path().toString())
+                    .toList();
+        }
     }
 }
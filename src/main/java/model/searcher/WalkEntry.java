@@ -0,0 +1,32 @@
+package model.searcher;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Record for a file or directory found while walking a file tree.
+ * @param path absolute path of the entry
+ * @param attributes attributes read while walking
+ * @param contentCount number of entries in the directory, or 0 for a file
+ */
+public record WalkEntry(
+        Path path,
+        BasicFileAttributes attributes,
+        long contentCount
+) {
+    /**
+     * Check whether the entry is a directory.
+     * @return true if the entry is a directory
+     */
+    public boolean isDirectory() {
+        return attributes.isDirectory();
+    }
+
+    /**
+     * Get last modified time of the entry.
+     * @return last modified time in milliseconds
+     */
+    public long lastModified() {
+        return attributes.lastModifiedTime().toMillis();
+    }
+}
@@ -0,0 +1,158 @@
+package model.watcher;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Class for watching directories for changes with WatchService.
+ * Events are coalesced into batches, so a file written in several steps is handled once.
+ * New directories are watched as soon as they are found,
+ * and a directory whose events overflowed is reported to be read again entirely.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+
+    /**
+     * Default time to wait for more events after the first event of a batch
+     */
+    public static final long DEFAULT_COALESCE_MILLIS = 1000;
+
+    private final WatchService watchService;
+
+    private final Map<WatchKey, Path> directoryByKey = new HashMap<>();
+
+    private final long coalesceMillis;
+
+    /**
+     * Constructor for DirectoryWatcher.
+     * @param coalesceMillis time to wait for more events after the first event of a batch
+     * @throws IOException if the watch service cannot be opened
+     */
+    public DirectoryWatcher(long coalesceMillis) throws IOException {
+        if (coalesceMillis < 0) {
+            throw new IllegalArgumentException("coalesceMillis must not be negative");
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.coalesceMillis = coalesceMillis;
+    }
+
+    /**
+     * Watch the directories.
+     * @param directories directories to watch
+     * @return number of directories that cannot be watched, e.g. because they are removed
+     */
+    public int registerAll(Collection<Path> directories) {
+        int failedCount = 0;
+        for (Path directory : directories) {
+            if (!register(directory)) {
+                failedCount++;
+            }
+        }
+        return failedCount;
+    }
+
+    /**
+     * Watch the directory.
+     * @param directory directory to watch
+     * @return true if the directory is watched
+     */
+    public boolean register(Path directory) {
+        try {
+            WatchKey key = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            directoryByKey.put(key, directory.toAbsolutePath());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get number of watched directories.
+     * @return number of watched directories
+     */
+    public int size() {
+        return directoryByKey.size();
+    }
+
+    /**
+     * Wait for changes and coalesce them into a batch.
+     * The batch is given after no more events arrive within the coalescing time.
+     * @param timeoutMillis maximum time to wait for the first event
+     * @return changes, empty if no event arrived in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public WatchBatch poll(long timeoutMillis) throws InterruptedException {
+        Set<Path> changedPaths = new LinkedHashSet<>();
+        Set<Path> changedDirectories = new LinkedHashSet<>();
+        try {
+            WatchKey key = watchService.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            while (key != null) {
+                handle(key, changedPaths, changedDirectories);
+                key = watchService.poll(coalesceMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Watcher is closed while waiting, so the changes so far are given.
+        }
+        return new WatchBatch(changedPaths, changedDirectories);
+    }
+
+    private void handle(WatchKey key, Set<Path> changedPaths, Set<Path> changedDirectories) {
+        Path directory = directoryByKey.get(key);
+        if (directory == null) {
+            key.cancel();
+            return;
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Some events are lost, so the whole directory is read again.
+                changedPaths.add(directory);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            boolean isDirectory = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+            changedDirectories.add(directory);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && isDirectory) {
+                // Directory moved in may have a whole tree with old modified times.
+                registerTree(path);
+                changedPaths.add(path);
+            } else if (!isDirectory) {
+                // Modified directory reports the changes of its entries with its own key.
+                changedPaths.add(path);
+            }
+        }
+        if (!key.reset()) {
+            // Directory is removed.
+            directoryByKey.remove(key);
+        }
+    }
+
+    private void registerTree(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)).forEach(this::register);
+        } catch (IOException | RuntimeException e) {
+            // Part of the tree is removed while walking, and the rest is watched.
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,22 @@
+package model.watcher;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Record for changes coalesced from the events of a short period.
+ * @param changedPaths paths created, modified or removed, including new directories whose whole tree must be read
+ * @param changedDirectories directories whose entries changed, so their own metadata must be updated
+ */
+public record WatchBatch(
+        Set<Path> changedPaths,
+        Set<Path> changedDirectories
+) {
+    /**
+     * Check whether nothing changed.
+     * @return true if the batch has no change
+     */
+    public boolean isEmpty() {
+        return changedPaths.isEmpty() && changedDirectories.isEmpty();
+    }
+}
@@ -1,22 +1,34 @@
 package view;
 
+import dao.BatchWriteException;
 import dao.DBSetup;
 import dao.ConfigManager;
 import dao.DirMetadataDao;
+import dao.ScanSessionDao;
+import dao.SchemaManager;
 import model.config.DatabaseConfig;
+import model.config.ScanConfig;
+import model.metadata.DuplicateGroup;
 import model.metadata.FileMetadata;
 import dao.FileMetadataDao;
 import model.FileManager;
-import model.hasher.Md5Hasher;
+import model.hasher.Hasher;
+import model.hasher.Hashers;
+import model.searcher.TotalSearch;
+import model.watcher.DirectoryWatcher;
+import model.watcher.WatchBatch;
 import org.apache.commons.cli.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 public class Cli {
     public static final String DEFAULT_DB_CONFIG_FILE_NAME = "dbConfig.json";
+    public static final int DEFAULT_PAGE_SIZE = 20;
 
     public static void main(String[] args) throws ParseException {
         Options options = new Options();
@@ -34,8 +46,82 @@ public class Cli {
                 .argName("config")
                 .desc("database config file")
                 .build());
+        options.addOption(Option.builder("e")
+                .longOpt("embedded")
+                .hasArg()
+                .argName("file")
+                .desc("store metadata in an embedded database file instead of the configured database")
+                .build());
         options.addOption("a", "scan all", false, "scan all files");
         options.addOption("u", "scan updated", false, "scan updated files");
+        options.addOption("w", "watch", false, "keep watching the directory and update changed files as they change");
+        options.addOption(Option.builder("t")
+                .longOpt("threads")
+                .hasArg()
+                .argName("count")
+                .desc("number of hashing threads (default: " + ScanConfig.DEFAULT_WORKER_COUNT + ")")
+                .build());
+        options.addOption(Option.builder("q")
+                .longOpt("queue")
+                .hasArg()
+                .argName("size")
+                .desc("number of files that can wait for hashing at once (default: " + ScanConfig.DEFAULT_QUEUE_BOUND + ")")
+                .build());
+        options.addOption(Option.builder("b")
+                .longOpt("batch")
+                .hasArg()
+                .argName("size")
+                .desc("number of rows written to the database at once (default: " + ScanConfig.DEFAULT_BATCH_SIZE + ")")
+                .build());
+        options.addOption(Option.builder("i")
+                .longOpt("index-threshold")
+                .hasArg()
+                .argName("count")
+                .desc("maximum number of files loaded into memory for an update scan (default: "
+                        + ScanConfig.DEFAULT_INDEX_THRESHOLD + ")")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("hash")
+                .hasArg()
+                .argName("algorithm")
+                .desc("hash algorithm, one of " + Hashers.ALGORITHMS + " (default: " + Hashers.DEFAULT_ALGORITHM + ")")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("buffer")
+                .hasArg()
+                .argName("bytes")
+                .desc("size of the buffer for reading a file while hashing (default: " + Hashers.DEFAULT_BUFFER_SIZE + ")")
+                .build());
+        options.addOption(Option.builder("p")
+                .longOpt("page-size")
+                .hasArg()
+                .argName("count")
+                .desc("number of duplicate groups listed at once (default: " + DEFAULT_PAGE_SIZE + ")")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("dry-run")
+                .desc("only report which duplicate files would be deleted or linked")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("verify")
+                .desc("compare duplicate files byte by byte before deleting or linking them")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("link")
+                .desc("replace duplicate files with reflinks or hard links to the kept file instead of deleting them")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("resume")
+                .desc("resume an interrupted full scan of the same directory from its last checkpoint")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("db-stats")
+                .desc("print the schema version and the size of the tables and indexes")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("paranoid")
+                .desc("hash files again even if their size and last modified time are not changed")
+                .build());
 
         CommandLineParser parser = new DefaultParser();
         CommandLine cmd = parser.parse(options, args);
@@ -52,7 +138,9 @@ public class Cli {
         ConfigManager configManager = new ConfigManager();
 
         // Load database config
-        if (cmd.hasOption("c")) {
+        if (cmd.hasOption("e")) {
+            configManager.setDatabaseConfig(DatabaseConfig.embedded(cmd.getOptionValue("e")));
+        } else if (cmd.hasOption("c")) {
             loadDBConfig(configManager, cmd.getOptionValue("c"));
         } else {
             loadDBConfig(configManager, DEFAULT_DB_CONFIG_FILE_NAME);
@@ -65,7 +153,7 @@ public class Cli {
         String rootDir = null;
         if (cmd.hasOption("d") && cmd.getOptionValue("d") != null) {
             rootDir = cmd.getOptionValue("d");
-        } else {
+        } else if (!cmd.hasOption("db-stats")) {
             System.err.println("Please specify directory to scan.");
             endProgram();
         }
@@ -79,32 +167,60 @@ public class Cli {
             System.err.println("Cannot connect to database.");
             throw new RuntimeException(e);
         }
-        FileManager fileManager = new FileManager(configManager, new Md5Hasher());
+        SchemaManager schemaManager = new SchemaManager(connection);
+        try {
+            schemaManager.createTables();
+        } catch (IllegalStateException e) {
+            System.err.println("Cannot migrate database.");
+            throw e;
+        }
+        if (cmd.hasOption("db-stats")) {
+            System.out.println("Schema version: " + schemaManager.getVersion());
+            schemaManager.getTableStats().forEach(System.out::println);
+            if (rootDir == null) {
+                endProgram();
+            }
+        }
+        ScanConfig scanConfig = loadScanConfig(cmd);
+        int pageSize = loadPageSize(cmd);
+        Hasher hasher = Hashers.create(scanConfig.getHashAlgorithm(), scanConfig.getReadBufferSize());
+        FileManager fileManager = new FileManager(configManager, hasher, scanConfig);
+        DirMetadataDao dirMetadataDao = new DirMetadataDao(connection, scanConfig.getBatchSize());
+        FileMetadataDao fileMetadataDao = new FileMetadataDao(connection, scanConfig.getBatchSize(), hasher.algorithm());
+        ScanSessionDao scanSessionDao = new ScanSessionDao(connection);
 
         // Scan files
         if (cmd.hasOption("a")) {
-            fileManager.updateAll(rootDir, new DirMetadataDao(connection), new FileMetadataDao(connection));
+            fileManager.updateAll(rootDir, dirMetadataDao, fileMetadataDao, scanSessionDao, cmd.hasOption("resume"));
+            System.out.println(fileManager.getScanReport());
         } else if (cmd.hasOption("u")) {
-            fileManager.updateModifiedContent(rootDir, new DirMetadataDao(connection), new FileMetadataDao(connection));
-            List<FileMetadata> result = fileManager.getDuplicateFiles();
+            fileManager.updateModifiedContent(rootDir, dirMetadataDao, fileMetadataDao, scanSessionDao);
+            System.out.println(fileManager.getScanReport());
+            long groupCount = fileMetadataDao.countDuplicateGroups();
+            System.out.println("Duplicated groups count: " + groupCount
+                    + ", reclaimable bytes: " + fileMetadataDao.sumReclaimableBytes());
             System.out.println("Do you want to list all duplicated files? [Y/n]:");
             String answer = System.console().readLine();
             if (answer.equals("Y") || answer.equals("y") || answer.isEmpty()) {
-                System.out.println("Duplicated files:");
-                for (FileMetadata fileMetadata : result) {
-                    System.out.println(fileMetadata);
-                }
+                listDuplicateGroups(fileMetadataDao, pageSize);
             }
-            System.out.println("Duplicated files count: " + result.size());
 
-            if (!result.isEmpty()) {
-                // Delete files
-                System.out.println("\nDo you want to delete duplicated files? [Y/n]:");
+            if (groupCount > 0) {
+                boolean link = cmd.hasOption("link");
+                boolean dryRun = cmd.hasOption("dry-run");
+                // Delete files, or replace them with links
+                System.out.println(link
+                        ? "\nDo you want to replace duplicated files with links? [Y/n]:"
+                        : "\nDo you want to delete duplicated files? [Y/n]:");
                 answer = System.console().readLine();
                 if (answer.equals("Y") || answer.equals("y") || answer.isEmpty()) {
-                    fileManager.deleteDuplicateFiles();
+                    System.out.println(link
+                            ? fileManager.linkDuplicateFiles(fileMetadataDao, dryRun)
+                            : fileManager.deleteDuplicateFiles(fileMetadataDao, dryRun));
                 }
             }
+        } else if (cmd.hasOption("w")) {
+            watch(rootDir, configManager, fileManager, dirMetadataDao, fileMetadataDao, scanSessionDao);
         } else {
             System.err.println("Please specify scan mode.");
             endProgram();
@@ -120,6 +236,145 @@ public class Cli {
         }
     }
 
+    /**
+     * Watch the directory and update the changed files until the program is stopped.
+     * Directories are scanned entirely first if none of them is in the database yet.
+     * @param rootDir directory to watch
+     * @param configManager ConfigManager object
+     * @param fileManager FileManager object
+     * @param dirMetadataDao DirMetadataDao object
+     * @param fileMetadataDao FileMetadataDao object
+     * @param scanSessionDao ScanSessionDao object
+     */
+    private static void watch(
+            String rootDir,
+            ConfigManager configManager,
+            FileManager fileManager,
+            DirMetadataDao dirMetadataDao,
+            FileMetadataDao fileMetadataDao,
+            ScanSessionDao scanSessionDao) {
+        try (DirectoryWatcher watcher = new DirectoryWatcher(DirectoryWatcher.DEFAULT_COALESCE_MILLIS)) {
+            // Directories are watched before the first scan, so no change is missed while scanning.
+            watcher.register(Path.of(rootDir));
+            List<String> dirPaths = dirMetadataDao.getAllPath();
+            if (dirPaths.isEmpty()) {
+                dirPaths = new TotalSearch(rootDir).getDirPaths();
+                watcher.registerAll(dirPaths.stream().map(Path::of).toList());
+                fileManager.updateAll(rootDir, dirMetadataDao, fileMetadataDao, scanSessionDao);
+                System.out.println(fileManager.getScanReport());
+            } else {
+                int failedCount = watcher.registerAll(dirPaths.stream().map(Path::of).toList());
+                if (failedCount > 0) {
+                    System.err.println("Cannot watch " + failedCount + " directories.");
+                }
+                // Batches hash only the files of the changed sizes, so hashes of another algorithm are cleared once here.
+                fileManager.clearOtherAlgorithmHashes(fileMetadataDao);
+            }
+            System.out.println("Watching " + watcher.size() + " directories. Press Ctrl+C to stop.");
+            while (true) {
+                WatchBatch batch = watcher.poll(Long.MAX_VALUE);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                Set<Long> changedSizes;
+                try {
+                    changedSizes = fileManager.updateChangedPaths(
+                            batch.changedPaths(), batch.changedDirectories(), dirMetadataDao, fileMetadataDao);
+                } catch (BatchWriteException e) {
+                    // Watching goes on, and the files of the failed batch are stored when they change again.
+                    System.err.println("Cannot store changed files: " + e.getCause().getMessage());
+                    continue;
+                }
+                // Only the groups of the changed sizes are counted, so a batch does not read the whole table.
+                System.out.println(batch.changedPaths().size() + " paths changed. Duplicated groups of the changed sizes: "
+                        + fileMetadataDao.countDuplicateGroups(changedSizes)
+                        + ", reclaimable bytes: " + fileMetadataDao.sumReclaimableBytes(changedSizes));
+                // Later update scans start from the last change handled.
+                configManager.saveLastRunTimestamp(ConfigManager.createCurrentTimestamp());
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot watch directory.");
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * List duplicate groups page by page, the groups freeing the most space first.
+     * @param fileMetadataDao FileMetadataDao object
+     * @param pageSize number of groups in a page
+     */
+    private static void listDuplicateGroups(FileMetadataDao fileMetadataDao, int pageSize) {
+        System.out.println("Duplicated files:");
+        long offset = 0;
+        while (true) {
+            List<DuplicateGroup> page = fileMetadataDao.findDuplicateGroups(offset, pageSize);
+            for (DuplicateGroup group : page) {
+                System.out.println("Hash " + group.hash() + ", size " + group.size()
+                        + ", reclaimable bytes " + group.reclaimableBytes() + ":");
+                for (FileMetadata fileMetadata : group.members()) {
+                    System.out.println("  " + fileMetadata);
+                }
+            }
+            offset += page.size();
+            if (page.size() < pageSize) {
+                return;
+            }
+            System.out.println("Do you want to list more duplicated files? [Y/n]:");
+            String answer = System.console().readLine();
+            if (!(answer.equals("Y") || answer.equals("y") || answer.isEmpty())) {
+                return;
+            }
+        }
+    }
+
+    private static int loadPageSize(CommandLine cmd) {
+        int pageSize = DEFAULT_PAGE_SIZE;
+        try {
+            if (cmd.hasOption("p")) {
+                pageSize = Integer.parseInt(cmd.getOptionValue("p"));
+            }
+        } catch (NumberFormatException e) {
+            pageSize = 0;
+        }
+        if (pageSize <= 0) {
+            System.err.println("Invalid page size: " + cmd.getOptionValue("p"));
+            endProgram();
+        }
+        return pageSize;
+    }
+
+    private static ScanConfig loadScanConfig(CommandLine cmd) {
+        ScanConfig scanConfig = new ScanConfig();
+        try {
+            if (cmd.hasOption("t")) {
+                scanConfig.setWorkerCount(Integer.parseInt(cmd.getOptionValue("t")));
+            }
+            if (cmd.hasOption("q")) {
+                scanConfig.setQueueBound(Integer.parseInt(cmd.getOptionValue("q")));
+            }
+            if (cmd.hasOption("b")) {
+                scanConfig.setBatchSize(Integer.parseInt(cmd.getOptionValue("b")));
+            }
+            if (cmd.hasOption("i")) {
+                scanConfig.setIndexThreshold(Integer.parseInt(cmd.getOptionValue("i")));
+            }
+            scanConfig.setParanoid(cmd.hasOption("paranoid"));
+            scanConfig.setVerify(cmd.hasOption("verify"));
+            if (cmd.hasOption("hash")) {
+                scanConfig.setHashAlgorithm(cmd.getOptionValue("hash"));
+            }
+            if (cmd.hasOption("buffer")) {
+                scanConfig.setReadBufferSize(Integer.parseInt(cmd.getOptionValue("buffer")));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid scan option: " + e.getMessage());
+            endProgram();
+        }
+        return scanConfig;
+    }
+
     private static void loadLastRunTimestamp(ConfigManager configManager) {
         try {
             configManager.loadLastRunTimestamp();
@@ -0,0 +1,70 @@
+package dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+class ConnectionPoolTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool connectionPool;
+
+    @BeforeEach
+    public void setup() {
+        connectionPool = new ConnectionPool(DB_URL, "sa", "", 2);
+    }
+
+    @AfterEach
+    public void teardown() {
+        connectionPool.close();
+    }
+
+    @Test
+    void reuseClosedConnectionTest() throws SQLException {
+        Connection connection = connectionPool.getConnection();
+        Connection physicalConnection = connection.unwrap(Connection.class);
+        connection.setAutoCommit(false);
+        connection.close();
+
+        Assertions.assertTrue(connection.isClosed());
+        Assertions.assertThrows(SQLException.class, connection::createStatement);
+        try (Connection reused = connectionPool.getConnection()) {
+            Assertions.assertSame(physicalConnection, reused.unwrap(Connection.class));
+            Assertions.assertTrue(reused.getAutoCommit());
+        }
+    }
+
+    @Test
+    void separateConnectionsTest() throws SQLException {
+        try (Connection first = connectionPool.getConnection();
+             Connection second = connectionPool.getConnection()) {
+            Assertions.assertNotSame(first.unwrap(Connection.class), second.unwrap(Connection.class));
+        }
+    }
+
+    @Test
+    void waitForReturnedConnectionTest() throws Exception {
+        Connection first = connectionPool.getConnection();
+        Connection second = connectionPool.getConnection();
+        Thread waiting = new Thread(() -> {
+            try (Connection third = connectionPool.getConnection()) {
+                Assertions.assertFalse(third.isClosed());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        waiting.start();
+        waiting.join(200);
+        Assertions.assertTrue(waiting.isAlive());
+
+        first.close();
+        waiting.join(5000);
+        Assertions.assertFalse(waiting.isAlive());
+        second.close();
+    }
+}
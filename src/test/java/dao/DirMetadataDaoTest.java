@@ -5,12 +5,9 @@ import org.h2.tools.Server;
 import org.junit.jupiter.api.*;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.List;
 
-import static dao.DirMetadataDao.DIR_TB_NAME;
-
 class DirMetadataDaoTest {
 
     private Connection connection;
@@ -28,15 +25,7 @@ class DirMetadataDaoTest {
     public void setup() throws SQLException {
         connection = H2DatabaseSetup.createConnection();
         dirMetadataDao = new DirMetadataDao(connection);
-        String createTableQuery = "CREATE TABLE " + DIR_TB_NAME +
-                "(id INT AUTO_INCREMENT PRIMARY KEY, " +
-                "path VARCHAR(255) NOT NULL UNIQUE, " +
-                "last_modified BIGINT NOT NULL, " +
-                "content_count INT NOT NULL);";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(createTableQuery)) {
-            pstmt.execute();
-        }
+        new SchemaManager(connection).createTables();
 
         dirMetadata1 = new DirMetadata(
                 "Users/John/Desktop",
@@ -54,10 +43,7 @@ class DirMetadataDaoTest {
 
     @AfterEach
     public void teardown() throws SQLException {
-        String dropTableQuery = "DROP TABLE IF EXISTS " + DIR_TB_NAME + ";";
-        try (PreparedStatement pstmt = connection.prepareStatement(dropTableQuery)) {
-            pstmt.execute();
-        }
+        new SchemaManager(connection).dropTables();
         if (connection != null) {
             connection.close();
         }
@@ -129,4 +115,42 @@ class DirMetadataDaoTest {
         List<DirMetadata> searchResult = dirMetadataDao.searchByPath(dirMetadata3.path());
         Assertions.assertEquals(dirMetadata3, searchResult.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void insertAllTest() {
+        DirMetadataDao batchDao = new DirMetadataDao(connection, 2);
+        List<DirMetadata> inserted = List.of(
+                new DirMetadata("Users/John/Desktop/a", 1, 10),
+                new DirMetadata("Users/John/Desktop/b", 2, 20),
+                new DirMetadata("Users/John/Desktop/c", 3, 30)
+        );
+        batchDao.insertAll(inserted);
+        Assertions.assertEquals(5, dirMetadataDao.getAll().size());
+        for (DirMetadata dirMetadata : inserted) {
+            Assertions.assertEquals(dirMetadata, dirMetadataDao.searchByPath(dirMetadata.path()).get(0));
+        }
+    }
+
+    @Test
+    void upsertTest() {
+        DirMetadata updated = new DirMetadata(dirMetadata1.path(), 111, 222);
+        dirMetadataDao.upsert(updated);
+        DirMetadata inserted = new DirMetadata("Users/John/Desktop/new", 333, 444);
+        dirMetadataDao.upsert(inserted);
+        dirMetadataDao.upsert(inserted);
+        Assertions.assertEquals(3, dirMetadataDao.getAll().size());
+        Assertions.assertEquals(List.of(updated), dirMetadataDao.searchByPath(updated.path()));
+        Assertions.assertEquals(List.of(inserted), dirMetadataDao.searchByPath(inserted.path()));
+    }
+
+    @Test
+    void upsertAllTest() {
+        DirMetadata updated = new DirMetadata(dirMetadata1.path(), 111, 222);
+        DirMetadata inserted = new DirMetadata("Users/John/Desktop/new", 333, 444);
+        dirMetadataDao.upsertAll(List.of(updated, inserted));
+        Assertions.assertEquals(3, dirMetadataDao.getAll().size());
+        Assertions.assertEquals(updated, dirMetadataDao.searchByPath(updated.path()).get(0));
+        Assertions.assertEquals(inserted, dirMetadataDao.searchByPath(inserted.path()).get(0));
+        Assertions.assertEquals(dirMetadata2, dirMetadataDao.searchByPath(dirMetadata2.path()).get(0));
+    }
+}
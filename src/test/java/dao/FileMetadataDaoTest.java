@@ -1,16 +1,18 @@
 package dao;
 
+import model.hasher.Hash;
+import model.metadata.DuplicateGroup;
 import model.metadata.FileMetadata;
 import org.h2.tools.Server;
 import org.junit.jupiter.api.*;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
-import static dao.FileMetadataDao.FILE_TB_NAME;
-
 public class FileMetadataDaoTest {
 
     private Connection connection;
@@ -28,22 +30,13 @@ public class FileMetadataDaoTest {
     public void setup() throws SQLException {
         connection = H2DatabaseSetup.createConnection();
         fileMetadataDao = new FileMetadataDao(connection);
-        String createTableQuery = "CREATE TABLE " + FILE_TB_NAME +
-                "(id INT AUTO_INCREMENT PRIMARY KEY, " +
-                "path VARCHAR(255) NOT NULL UNIQUE, " +
-                "last_modified BIGINT NOT NULL, " +
-                "size BIGINT NOT NULL, " +
-                "hash VARCHAR(64) NOT NULL);";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(createTableQuery)) {
-            pstmt.execute();
-        }
+        new SchemaManager(connection).createTables();
 
         fileMetadata1 = new FileMetadata(
                 "Users/John/Desktop/test.txt",
                 1234567890,
                 1234567890,
-                "1234567890abcdef"
+                Hash.fromHex("1234567890abcdef")
         );
         fileMetadataDao.insert(fileMetadata1);
 
@@ -51,17 +44,14 @@ public class FileMetadataDaoTest {
                 "Users/John/Desktop/test2.txt",
                 987654321,
                 987654321,
-                "fedcba0987654321"
+                Hash.fromHex("fedcba0987654321")
         );
         fileMetadataDao.insert(fileMetadata2);
     }
 
     @AfterEach
     public void teardown() throws SQLException {
-        String dropTableQuery = "DROP TABLE IF EXISTS " + FILE_TB_NAME + ";";
-        try (PreparedStatement pstmt = connection.prepareStatement(dropTableQuery)) {
-            pstmt.execute();
-        }
+        new SchemaManager(connection).dropTables();
         if (connection != null) {
             connection.close();
         }
@@ -101,10 +91,214 @@ public class FileMetadataDaoTest {
         List<FileMetadata> result2 = fileMetadataDao.searchByHash(fileMetadata2.hash());
         Assertions.assertEquals(1, result2.size());
         Assertions.assertEquals(fileMetadata2, result2.get(0));
-        List<FileMetadata> result3 = fileMetadataDao.searchByHash("1234567890abcdef1234567890abcdef");
+        List<FileMetadata> result3 = fileMetadataDao.searchByHash(Hash.fromHex("1234567890abcdef1234567890abcdef"));
         Assertions.assertEquals(0, result3.size());
     }
 
+    @Test
+    void searchBySizeTest() {
+        List<FileMetadata> result = fileMetadataDao.searchBySize(fileMetadata1.size());
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(fileMetadata1, result.get(0));
+        List<FileMetadata> result2 = fileMetadataDao.searchBySize(1);
+        Assertions.assertEquals(0, result2.size());
+    }
+
+    @Test
+    void getCollidingSizesTest() {
+        // Same size as fileMetadata1, but hash is deferred.
+        FileMetadata fileMetadata3 = new FileMetadata(
+                "Users/John/Desktop/test3.txt",
+                1234567890,
+                1234567890,
+                null
+        );
+        fileMetadataDao.insert(fileMetadata3);
+        List<Long> result = fileMetadataDao.getCollidingSizes();
+        Assertions.assertEquals(List.of(fileMetadata1.size()), result);
+
+        fileMetadataDao.updateHash(fileMetadata3.path(), fileMetadata1.hash());
+        Assertions.assertEquals(0, fileMetadataDao.getCollidingSizes().size());
+    }
+
+    @Test
+    void getCollidingSizesOfSizesTest() {
+        FileMetadata fileMetadata3 = new FileMetadata("Users/John/Desktop/test3.txt", 1, 1234567890, null);
+        fileMetadataDao.insert(fileMetadata3);
+
+        Assertions.assertEquals(
+                List.of(fileMetadata1.size()),
+                fileMetadataDao.getCollidingSizes(List.of(1L, fileMetadata1.size()))
+        );
+        Assertions.assertTrue(fileMetadataDao.getCollidingSizes(List.of(1L)).isEmpty());
+        Assertions.assertTrue(fileMetadataDao.getCollidingSizes(List.of()).isEmpty());
+    }
+
+    @Test
+    void scanAllTest() {
+        List<FileMetadata> result = new ArrayList<>();
+        fileMetadataDao.scanAll(result::add);
+        Assertions.assertEquals(List.of(fileMetadata1, fileMetadata2), result);
+    }
+
+    @Test
+    void countTest() {
+        Assertions.assertEquals(2, fileMetadataDao.count());
+    }
+
+    @Test
+    void findDuplicateGroupsTest() {
+        FileMetadata duplicate1 = new FileMetadata("Users/John/Desktop/copy1.txt", 1, 1234567890, fileMetadata1.hash());
+        FileMetadata duplicate2 = new FileMetadata("Users/John/Desktop/copy2.txt", 2, 1234567890, fileMetadata1.hash());
+        FileMetadata otherSize = new FileMetadata("Users/John/Desktop/other.txt", 3, 10, fileMetadata1.hash());
+        FileMetadata link1 = new FileMetadata("Users/John/Desktop/link1.txt", 4, 20, Hash.fromHex("abcd"), null, "inode1");
+        FileMetadata link2 = new FileMetadata("Users/John/Desktop/link2.txt", 4, 20, Hash.fromHex("abcd"), null, "inode1");
+        fileMetadataDao.insertAll(List.of(duplicate1, duplicate2, otherSize, link1, link2));
+
+        List<DuplicateGroup> result = fileMetadataDao.findDuplicateGroups();
+
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(fileMetadata1.hash(), result.get(0).hash());
+        Assertions.assertEquals(1234567890, result.get(0).size());
+        Assertions.assertEquals(List.of(duplicate1, duplicate2, fileMetadata1), result.get(0).members());
+    }
+
+    @Test
+    void reflinksAreNotDuplicatesTest() {
+        FileMetadata original = new FileMetadata("Users/John/Desktop/original.txt", 1, 20, Hash.fromHex("abcd"), null, "inode1");
+        FileMetadata reflink = new FileMetadata("Users/John/Desktop/reflink.txt", 2, 20, Hash.fromHex("abcd"), null, "inode2", "inode1");
+        fileMetadataDao.insertAll(List.of(original, reflink));
+
+        Assertions.assertEquals(List.of(reflink), fileMetadataDao.searchByPath(reflink.path()));
+        Assertions.assertEquals(0, fileMetadataDao.countDuplicateGroups());
+        Assertions.assertEquals(0, fileMetadataDao.sumReclaimableBytes());
+
+        // A changed reflink is written by the scan without the mark, so it is a duplicate again.
+        fileMetadataDao.upsertAll(List.of(new FileMetadata(reflink.path(), 3, 20, Hash.fromHex("abcd"), null, "inode2")));
+        Assertions.assertEquals(1, fileMetadataDao.countDuplicateGroups());
+        Assertions.assertEquals(20, fileMetadataDao.sumReclaimableBytes());
+    }
+
+    @Test
+    void findDuplicateGroupsPageTest() {
+        FileMetadata small1 = new FileMetadata("Users/John/Desktop/small1.txt", 1, 10, Hash.fromHex("aa"));
+        FileMetadata small2 = new FileMetadata("Users/John/Desktop/small2.txt", 1, 10, Hash.fromHex("aa"));
+        FileMetadata large1 = new FileMetadata("Users/John/Desktop/large1.txt", 1, 100, Hash.fromHex("bb"));
+        FileMetadata large2 = new FileMetadata("Users/John/Desktop/large2.txt", 1, 100, Hash.fromHex("bb"));
+        FileMetadata medium1 = new FileMetadata("Users/John/Desktop/medium1.txt", 1, 40, Hash.fromHex("cc"));
+        FileMetadata medium2 = new FileMetadata("Users/John/Desktop/medium2.txt", 1, 40, Hash.fromHex("cc"));
+        FileMetadata medium3 = new FileMetadata("Users/John/Desktop/medium3.txt", 1, 40, Hash.fromHex("cc"));
+        fileMetadataDao.insertAll(List.of(small1, small2, large1, large2, medium1, medium2, medium3));
+
+        Assertions.assertEquals(3, fileMetadataDao.countDuplicateGroups());
+        Assertions.assertEquals(
+                List.of(100L, 80L, 10L),
+                fileMetadataDao.findDuplicateGroups().stream().map(DuplicateGroup::reclaimableBytes).toList()
+        );
+        List<DuplicateGroup> firstPage = fileMetadataDao.findDuplicateGroups(0, 2);
+        Assertions.assertEquals(List.of(large1, large2), firstPage.get(0).members());
+        Assertions.assertEquals(List.of(medium1, medium2, medium3), firstPage.get(1).members());
+        List<DuplicateGroup> secondPage = fileMetadataDao.findDuplicateGroups(2, 2);
+        Assertions.assertEquals(1, secondPage.size());
+        Assertions.assertEquals(List.of(small1, small2), secondPage.get(0).members());
+    }
+
+    @Test
+    void findDuplicateGroupsAfterTest() {
+        FileMetadata small1 = new FileMetadata("Users/John/Desktop/small1.txt", 1, 10, Hash.fromHex("aa"));
+        FileMetadata small2 = new FileMetadata("Users/John/Desktop/small2.txt", 1, 10, Hash.fromHex("aa"));
+        FileMetadata other1 = new FileMetadata("Users/John/Desktop/other1.txt", 1, 10, Hash.fromHex("dd"));
+        FileMetadata other2 = new FileMetadata("Users/John/Desktop/other2.txt", 1, 10, Hash.fromHex("dd"));
+        FileMetadata large1 = new FileMetadata("Users/John/Desktop/large1.txt", 1, 100, Hash.fromHex("bb"));
+        FileMetadata large2 = new FileMetadata("Users/John/Desktop/large2.txt", 1, 100, Hash.fromHex("bb"));
+        fileMetadataDao.insertAll(List.of(small1, small2, other1, other2, large1, large2));
+
+        Assertions.assertEquals(120, fileMetadataDao.sumReclaimableBytes());
+        Assertions.assertEquals(2, fileMetadataDao.countDuplicateGroups(List.of(10L, 40L)));
+        Assertions.assertEquals(20, fileMetadataDao.sumReclaimableBytes(List.of(10L, 40L)));
+        Assertions.assertEquals(0, fileMetadataDao.sumReclaimableBytes(List.of()));
+        List<DuplicateGroup> firstPage = fileMetadataDao.findDuplicateGroupsAfter(null, 2);
+        Assertions.assertEquals(2, firstPage.size());
+        Assertions.assertEquals(List.of(large1, large2), firstPage.get(0).members());
+        Assertions.assertEquals(List.of(other1, other2), firstPage.get(1).members());
+
+        // The next page starts after the last group, even if the groups before it are resolved.
+        fileMetadataDao.deleteAllByPath(List.of(large2.path()));
+        List<DuplicateGroup> secondPage = fileMetadataDao.findDuplicateGroupsAfter(firstPage.get(1), 2);
+        Assertions.assertEquals(1, secondPage.size());
+        Assertions.assertEquals(List.of(small1, small2), secondPage.get(0).members());
+        Assertions.assertTrue(fileMetadataDao.findDuplicateGroupsAfter(secondPage.get(0), 2).isEmpty());
+    }
+
+    @Test
+    void insertAllFailureTest() {
+        FileMetadata newFile = new FileMetadata("Users/John/Desktop/new.txt", 1, 10, null);
+
+        // The path of fileMetadata1 is already stored, so the chunk is rolled back and the failure is thrown.
+        Assertions.assertThrows(BatchWriteException.class,
+                () -> fileMetadataDao.insertAll(List.of(newFile, fileMetadata1)));
+        Assertions.assertTrue(fileMetadataDao.searchByPath(newFile.path()).isEmpty());
+    }
+
+    @Test
+    void deleteAllByPathTest() {
+        fileMetadataDao.deleteAllByPath(List.of(fileMetadata1.path(), "Users/John/Desktop/missing.txt"));
+        Assertions.assertEquals(List.of(fileMetadata2), fileMetadataDao.getAll());
+    }
+
+    @Test
+    void deleteTreeTest() {
+        String dirPath = Path.of("Users", "John", "Desktop").toString();
+        FileMetadata inDir = new FileMetadata(Path.of(dirPath, "in.txt").toString(), 1, 10, null);
+        FileMetadata similarName = new FileMetadata(dirPath + "_copy" + File.separator + "out.txt", 1, 10, null);
+        fileMetadataDao.insertAll(List.of(inDir, similarName));
+
+        fileMetadataDao.deleteTree(dirPath);
+
+        Assertions.assertTrue(fileMetadataDao.searchByPath(inDir.path()).isEmpty());
+        Assertions.assertEquals(List.of(similarName), fileMetadataDao.searchByPath(similarName.path()));
+    }
+
+    @Test
+    void deleteNotScannedTest() {
+        String rootPath = Path.of("Users", "Jane").toString();
+        String dirPath = Path.of(rootPath, "Work").toString();
+        FileMetadata scanned = new FileMetadata(Path.of(dirPath, "scanned.txt").toString(), 1, 10, null);
+        FileMetadata marked = new FileMetadata(Path.of(dirPath, "marked.txt").toString(), 1, 10, null);
+        FileMetadata removed = new FileMetadata(Path.of(dirPath, "removed.txt").toString(), 1, 10, null);
+        FileMetadata nested = new FileMetadata(Path.of(dirPath, "sub", "nested.txt").toString(), 1, 10, null);
+        fileMetadataDao.insertAll(List.of(marked, removed, nested));
+        fileMetadataDao.upsertAll(List.of(scanned), 2);
+        fileMetadataDao.markScanned(List.of(marked.path()), 2);
+
+        // Only the files directly in the directory are swept.
+        Assertions.assertEquals(1, fileMetadataDao.deleteNotScannedChildren(List.of(dirPath), 2));
+        Assertions.assertTrue(fileMetadataDao.searchByPath(removed.path()).isEmpty());
+        Assertions.assertEquals(List.of(nested), fileMetadataDao.searchByPath(nested.path()));
+
+        Assertions.assertEquals(1, fileMetadataDao.deleteNotScanned(rootPath, 2));
+        Assertions.assertTrue(fileMetadataDao.searchByPath(nested.path()).isEmpty());
+        Assertions.assertEquals(List.of(scanned), fileMetadataDao.searchByPath(scanned.path()));
+        Assertions.assertEquals(List.of(marked), fileMetadataDao.searchByPath(marked.path()));
+        // Files outside the root are kept.
+        Assertions.assertEquals(List.of(fileMetadata1), fileMetadataDao.searchByPath(fileMetadata1.path()));
+    }
+
+    @Test
+    void clearOtherAlgorithmHashesTest() {
+        FileMetadataDao blake3Dao = new FileMetadataDao(connection, 1000, "BLAKE3");
+        FileMetadata blake3Metadata = new FileMetadata("Users/John/Desktop/blake3.txt", 1, 10, Hash.fromHex("abcd"), Hash.fromHex("ab"));
+        blake3Dao.insert(blake3Metadata);
+        Assertions.assertTrue(fileMetadataDao.searchByHash(Hash.fromHex("abcd")).isEmpty());
+        Assertions.assertEquals(List.of(blake3Metadata), blake3Dao.searchByHash(Hash.fromHex("abcd")));
+
+        Assertions.assertEquals(2, blake3Dao.clearOtherAlgorithmHashes());
+        Assertions.assertTrue(blake3Dao.searchByPath(fileMetadata1.path()).get(0).isHashDeferred());
+        Assertions.assertNull(blake3Dao.searchByPath(fileMetadata2.path()).get(0).partialHash());
+        Assertions.assertEquals(List.of(blake3Metadata), blake3Dao.searchByPath(blake3Metadata.path()));
+        Assertions.assertEquals(0, blake3Dao.clearOtherAlgorithmHashes());
+    }
+
     @Test
     void updateLastModifiedTest() {
         long newLastModified = 666666666;
@@ -125,10 +319,82 @@ public class FileMetadataDaoTest {
 
     @Test
     void updateHashTest() {
-        String newHash = "thisistesthash";
+        Hash newHash = Hash.fromHex("7E57AB1E");
         fileMetadataDao.updateHash(fileMetadata1.path(), newHash);
         List<FileMetadata> result = fileMetadataDao.searchByPath(fileMetadata1.path());
         Assertions.assertEquals(1, result.size());
         Assertions.assertEquals(newHash, result.get(0).hash());
     }
+
+    @Test
+    void updatePartialHashTest() {
+        Hash newPartialHash = Hash.fromHex("7E57BA5E");
+        fileMetadataDao.updatePartialHash(fileMetadata1.path(), newPartialHash);
+        List<FileMetadata> result = fileMetadataDao.searchByPath(fileMetadata1.path());
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(newPartialHash, result.get(0).partialHash());
+        Assertions.assertEquals(fileMetadata1.hash(), result.get(0).hash());
+    }
+
+    @Test
+    void insertAllTest() {
+        FileMetadataDao batchDao = new FileMetadataDao(connection, 2);
+        List<FileMetadata> inserted = List.of(
+                new FileMetadata("Users/John/Desktop/a.txt", 1, 10, Hash.fromHex("aaaa")),
+                new FileMetadata("Users/John/Desktop/b.txt", 2, 20, null),
+                new FileMetadata("Users/John/Desktop/c.txt", 3, 30, Hash.fromHex("cccc"), Hash.fromHex("cc"))
+        );
+        batchDao.insertAll(inserted);
+        Assertions.assertEquals(5, fileMetadataDao.getAll().size());
+        for (FileMetadata fileMetadata : inserted) {
+            Assertions.assertEquals(List.of(fileMetadata), fileMetadataDao.searchByPath(fileMetadata.path()));
+        }
+    }
+
+    @Test
+    void upsertTest() {
+        FileMetadata updated = new FileMetadata(fileMetadata1.path(), 111, 222, Hash.fromHex("0BDA7ED0"), Hash.fromHex("BA"));
+        fileMetadataDao.upsert(updated);
+        FileMetadata inserted = new FileMetadata("Users/John/Desktop/new.txt", 333, 444, null);
+        fileMetadataDao.upsert(inserted);
+        fileMetadataDao.upsert(inserted);
+        Assertions.assertEquals(3, fileMetadataDao.getAll().size());
+        Assertions.assertEquals(List.of(updated), fileMetadataDao.searchByPath(updated.path()));
+        Assertions.assertEquals(List.of(inserted), fileMetadataDao.searchByPath(inserted.path()));
+    }
+
+    @Test
+    void upsertAllTest() {
+        FileMetadataDao batchDao = new FileMetadataDao(connection, 2);
+        FileMetadata updated = new FileMetadata(fileMetadata1.path(), 111, 222, null);
+        FileMetadata inserted = new FileMetadata("Users/John/Desktop/new.txt", 333, 444, null);
+        batchDao.upsertAll(List.of(updated, inserted));
+        Assertions.assertEquals(3, fileMetadataDao.getAll().size());
+        Assertions.assertEquals(List.of(updated), fileMetadataDao.searchByPath(updated.path()));
+        Assertions.assertEquals(List.of(inserted), fileMetadataDao.searchByPath(inserted.path()));
+        Assertions.assertEquals(List.of(fileMetadata2), fileMetadataDao.searchByPath(fileMetadata2.path()));
+    }
+
+    @Test
+    void updateAllTest() {
+        FileMetadata updated1 = new FileMetadata(fileMetadata1.path(), 1, 2, Hash.fromHex("01"), Hash.fromHex("B1"));
+        FileMetadata updated2 = new FileMetadata(fileMetadata2.path(), 3, 4, Hash.fromHex("02"));
+        fileMetadataDao.updateAll(List.of(updated1, updated2));
+        Assertions.assertEquals(List.of(updated1), fileMetadataDao.searchByPath(updated1.path()));
+        Assertions.assertEquals(List.of(updated2), fileMetadataDao.searchByPath(updated2.path()));
+    }
+
+    @Test
+    void updatePartialHashAllTest() {
+        fileMetadataDao.updatePartialHashAll(List.of(
+                new FileMetadata(fileMetadata1.path(), 0, 0, null, Hash.fromHex("B1")),
+                new FileMetadata(fileMetadata2.path(), 0, 0, null, Hash.fromHex("B2"))
+        ));
+        FileMetadata result1 = fileMetadataDao.searchByPath(fileMetadata1.path()).get(0);
+        FileMetadata result2 = fileMetadataDao.searchByPath(fileMetadata2.path()).get(0);
+        Assertions.assertEquals(Hash.fromHex("B1"), result1.partialHash());
+        Assertions.assertEquals(Hash.fromHex("B2"), result2.partialHash());
+        Assertions.assertEquals(fileMetadata1.hash(), result1.hash());
+        Assertions.assertEquals(fileMetadata2.size(), result2.size());
+    }
 }
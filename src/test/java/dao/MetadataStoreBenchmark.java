@@ -0,0 +1,91 @@
+package dao;
+
+import model.config.DatabaseConfig;
+import model.hasher.Hash;
+import model.metadata.FileMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark comparing the embedded database with a remote database on the metadata of a synthetic tree.
+ * Run with the number of files, and optionally the URL, user and password of a MySQL database to compare,
+ * e.g. {@code java dao.MetadataStoreBenchmark 100000 db.example.com:3306 user password}.
+ * Tables of the remote database are dropped and created again.
+ */
+public class MetadataStoreBenchmark {
+
+    private static final int DEFAULT_FILE_COUNT = 100_000;
+
+    private static final int FILES_PER_DIR = 100;
+
+    public static void main(String[] args) throws IOException, SQLException {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILE_COUNT;
+        List<FileMetadata> tree = makeSyntheticTree(fileCount);
+
+        Path embeddedDir = Files.createTempDirectory("metadata-store-benchmark");
+        try {
+            run("embedded H2", DatabaseConfig.embedded(embeddedDir.resolve("metadata").toString()), tree);
+        } finally {
+            try (var files = Files.list(embeddedDir)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(embeddedDir);
+        }
+        if (args.length >= 4) {
+            run("remote MySQL", new DatabaseConfig(args[1], args[2], args[3]), tree);
+        }
+    }
+
+    /**
+     * Make metadata of a tree with the given number of files.
+     * Every tenth file has the same size and hash as the previous file, so there are duplicate groups.
+     * @param fileCount number of files
+     * @return metadata of the files
+     */
+    private static List<FileMetadata> makeSyntheticTree(int fileCount) {
+        List<FileMetadata> tree = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            int content = i % 10 == 9 ? i - 1 : i;
+            String path = "/synthetic/dir" + (i / FILES_PER_DIR) + "/file" + i + ".bin";
+            byte[] hash = ByteBuffer.allocate(Long.BYTES).putLong(content * 0x9E3779B97F4A7C15L).array();
+            tree.add(new FileMetadata(path, 1_700_000_000_000L + i, 1024L + content, Hash.of(hash)));
+        }
+        return tree;
+    }
+
+    private static void run(String name, DatabaseConfig databaseConfig, List<FileMetadata> tree) throws SQLException {
+        try (DBSetup dbSetup = new DBSetup(databaseConfig);
+             Connection connection = dbSetup.getConnection()) {
+            SchemaManager schemaManager = new SchemaManager(connection);
+            schemaManager.dropTables();
+            schemaManager.createTables();
+            FileMetadataDao fileMetadataDao = new FileMetadataDao(connection);
+
+            measure(name, "upsertAll", tree.size(), () -> fileMetadataDao.upsertAll(tree));
+            measure(name, "searchByPath", tree.size(), () -> {
+                for (FileMetadata fileMetadata : tree) {
+                    fileMetadataDao.searchByPath(fileMetadata.path());
+                }
+            });
+            measure(name, "scanAll", tree.size(), () -> fileMetadataDao.scanAll(fileMetadata -> {}));
+            measure(name, "findDuplicateGroups", tree.size(), () -> fileMetadataDao.findDuplicateGroups(group -> {}));
+            schemaManager.dropTables();
+        }
+    }
+
+    private static void measure(String name, String operation, int fileCount, Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-14s %-20s %10.3f s  %12.0f files/s%n", name, operation, seconds, fileCount / seconds);
+    }
+}
@@ -0,0 +1,28 @@
+package dao;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class PathColumnsTest {
+
+    @Test
+    void pathHashTest() {
+        String path = Path.of("Users", "John", "Desktop", "test.txt").toString();
+
+        Assertions.assertEquals(32, PathColumns.pathHash(path).length);
+        Assertions.assertArrayEquals(PathColumns.pathHash(path), PathColumns.pathHash(path));
+        Assertions.assertFalse(Arrays.equals(PathColumns.pathHash(path), PathColumns.pathHash(path + "2")));
+    }
+
+    @Test
+    void parentDirTest() {
+        Assertions.assertEquals(
+                Path.of("Users", "John").toString(),
+                PathColumns.parentDir(Path.of("Users", "John", "test.txt").toString())
+        );
+        Assertions.assertNull(PathColumns.parentDir("test.txt"));
+    }
+}
@@ -0,0 +1,47 @@
+package dao;
+
+import model.metadata.ScanSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+class ScanSessionDaoTest {
+
+    private Connection connection;
+
+    private ScanSessionDao scanSessionDao;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        connection = H2DatabaseSetup.createConnection();
+        new SchemaManager(connection).createTables();
+        scanSessionDao = new ScanSessionDao(connection);
+    }
+
+    @AfterEach
+    public void teardown() throws SQLException {
+        new SchemaManager(connection).dropTables();
+        connection.close();
+    }
+
+    @Test
+    void startTest() {
+        ScanSession first = scanSessionDao.start("/data");
+        ScanSession second = scanSessionDao.start("/data");
+
+        Assertions.assertTrue(second.id() > first.id());
+        Assertions.assertEquals(first, scanSessionDao.searchById(first.id()));
+        Assertions.assertNull(scanSessionDao.searchById(second.id() + 1));
+    }
+
+    @Test
+    void finishTest() {
+        ScanSession scanSession = scanSessionDao.start("/data");
+        scanSessionDao.finish(scanSession);
+        Assertions.assertEquals(scanSession, scanSessionDao.searchById(scanSession.id()));
+    }
+}
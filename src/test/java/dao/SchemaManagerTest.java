@@ -0,0 +1,154 @@
+package dao;
+
+import model.hasher.Hash;
+import model.metadata.FileMetadata;
+import model.metadata.TableStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static dao.DirMetadataDao.DIR_TB_NAME;
+import static dao.FileMetadataDao.FILE_TB_NAME;
+import static dao.ScanSessionDao.SCAN_SESSION_TB_NAME;
+
+class SchemaManagerTest {
+
+    private Connection connection;
+
+    private SchemaManager schemaManager;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        connection = H2DatabaseSetup.createConnection();
+        schemaManager = new SchemaManager(connection);
+    }
+
+    @AfterEach
+    public void teardown() throws SQLException {
+        schemaManager.dropTables();
+        connection.close();
+    }
+
+    @Test
+    void createTablesTest() throws SQLException {
+        schemaManager.createTables();
+        FileMetadataDao fileMetadataDao = new FileMetadataDao(connection);
+        FileMetadata fileMetadata = new FileMetadata("Users/John/Desktop/test.txt", 1, 10, null);
+        fileMetadataDao.insert(fileMetadata);
+
+        // Existing tables and their rows are kept.
+        schemaManager.createTables();
+
+        Assertions.assertEquals(SchemaManager.SCHEMA_VERSION, schemaManager.getVersion());
+        Assertions.assertTrue(schemaManager.hasIndex(FILE_TB_NAME, SchemaManager.SIZE_HASH_INDEX_NAME));
+        Assertions.assertTrue(schemaManager.hasIndex(FILE_TB_NAME, SchemaManager.FILE_PATH_HASH_INDEX_NAME));
+        Assertions.assertTrue(schemaManager.hasIndex(DIR_TB_NAME, SchemaManager.DIR_PATH_HASH_INDEX_NAME));
+        Assertions.assertTrue(schemaManager.hasIndex(FILE_TB_NAME, SchemaManager.FILE_PARENT_DIR_INDEX_NAME));
+        Assertions.assertTrue(schemaManager.hasIndex(DIR_TB_NAME, SchemaManager.DIR_PARENT_DIR_INDEX_NAME));
+        // Rows are keyed by the path hash instead of the path.
+        Assertions.assertEquals(List.of(), schemaManager.findUniqueConstraints(FILE_TB_NAME, "path"));
+        Assertions.assertEquals(List.of(), schemaManager.findUniqueConstraints(DIR_TB_NAME, "path"));
+        Assertions.assertEquals(List.of(fileMetadata), fileMetadataDao.getAll());
+    }
+
+    @Test
+    void addScanIdColumnTest() throws SQLException {
+        // Table created before the scan id was added
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE " + DIR_TB_NAME + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "path VARCHAR(768) NOT NULL UNIQUE, last_modified BIGINT NOT NULL, content_count INT NOT NULL)");
+        }
+        Assertions.assertFalse(schemaManager.hasColumn(DIR_TB_NAME, "scan_id"));
+
+        schemaManager.createTables();
+
+        Assertions.assertTrue(schemaManager.hasColumn(DIR_TB_NAME, "scan_id"));
+        Assertions.assertTrue(schemaManager.hasColumn(FILE_TB_NAME, "scan_id"));
+    }
+
+    @Test
+    void migrateBaselineTablesTest() throws SQLException {
+        // Tables and rows created before the schema was managed
+        String path = Path.of("Users", "John", "Desktop", "test.txt").toString();
+        String hex = "5EB63BBBE01EEED093CB22BB8F5ACDC3";
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE " + FILE_TB_NAME + "(id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "path VARCHAR(255) NOT NULL UNIQUE, last_modified BIGINT NOT NULL, "
+                    + "size BIGINT NOT NULL, hash VARCHAR(64) NOT NULL)");
+            stmt.execute("CREATE TABLE " + DIR_TB_NAME + "(id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "path VARCHAR(255) NOT NULL UNIQUE, last_modified BIGINT NOT NULL, content_count INT NOT NULL)");
+            stmt.execute("INSERT INTO " + FILE_TB_NAME + " (path, last_modified, size, hash) "
+                    + "VALUES ('" + path + "', 1, 10, '" + hex + "')");
+            stmt.execute("INSERT INTO " + DIR_TB_NAME + " (path, last_modified, content_count) "
+                    + "VALUES ('" + Path.of("Users", "John").toString() + "', 1, 1)");
+        }
+
+        schemaManager.createTables();
+
+        // The stored hash is converted, and the row is found by its path hash.
+        FileMetadataDao fileMetadataDao = new FileMetadataDao(connection);
+        Assertions.assertEquals(List.of(new FileMetadata(path, 1, 10, Hash.fromHex(hex))),
+                fileMetadataDao.searchByPath(path));
+        DirMetadataDao dirMetadataDao = new DirMetadataDao(connection);
+        Assertions.assertEquals(1, dirMetadataDao.searchByPath(Path.of("Users", "John").toString()).size());
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT parent_dir FROM " + FILE_TB_NAME);
+            Assertions.assertTrue(rs.next());
+            Assertions.assertEquals(Path.of("Users", "John", "Desktop").toString(), rs.getString("parent_dir"));
+        }
+
+        // Files without hash and with long paths can be stored.
+        FileMetadata unhashed = new FileMetadata(
+                Path.of("Users", "John", "a".repeat(300) + ".txt").toString(), 1, 20, null);
+        fileMetadataDao.insert(unhashed);
+        Assertions.assertEquals(List.of(unhashed), fileMetadataDao.searchByPath(unhashed.path()));
+        Assertions.assertFalse(schemaManager.hasColumn(FILE_TB_NAME, "hash_bytes"));
+        Assertions.assertEquals(List.of(), schemaManager.findUniqueConstraints(FILE_TB_NAME, "path"));
+    }
+
+    @Test
+    void newerSchemaVersionTest() throws SQLException {
+        schemaManager.createTables();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("UPDATE " + SchemaManager.SCHEMA_VERSION_TB_NAME
+                    + " SET version = " + (SchemaManager.SCHEMA_VERSION + 1));
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, () -> schemaManager.createTables());
+    }
+
+    @Test
+    void failedMigrationTest() throws SQLException {
+        // Column of another type in the way of the migration
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE " + FILE_TB_NAME + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "path VARCHAR(768) NOT NULL, last_modified BIGINT NOT NULL, size BIGINT NOT NULL, path_hash INT)");
+            stmt.execute("INSERT INTO " + FILE_TB_NAME + " (path, last_modified, size) VALUES ('test.txt', 1, 10)");
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, () -> schemaManager.createTables());
+        Assertions.assertTrue(schemaManager.getVersion() < SchemaManager.SCHEMA_VERSION);
+    }
+
+    @Test
+    void tableStatsTest() {
+        schemaManager.createTables();
+        FileMetadataDao fileMetadataDao = new FileMetadataDao(connection);
+        fileMetadataDao.insert(new FileMetadata("Users/John/Desktop/test.txt", 1, 10, null));
+
+        List<TableStats> stats = schemaManager.getTableStats();
+
+        Assertions.assertEquals(List.of(FILE_TB_NAME, DIR_TB_NAME, SCAN_SESSION_TB_NAME),
+                stats.stream().map(TableStats::tableName).toList());
+        Assertions.assertEquals(1, stats.get(0).rowCount());
+        Assertions.assertEquals(0, stats.get(1).rowCount());
+    }
+}
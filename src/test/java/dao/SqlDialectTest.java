@@ -0,0 +1,41 @@
+package dao;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+class SqlDialectTest {
+
+    @Test
+    void h2UpsertQueryTest() {
+        String query = SqlDialect.H2.upsertQuery("file_metadata", "path", List.of("path", "size", "hash"));
+        Assertions.assertEquals(
+                "MERGE INTO file_metadata (path, size, hash) KEY(path) VALUES (?, ?, ?)",
+                query
+        );
+    }
+
+    @Test
+    void mysqlUpsertQueryTest() {
+        String query = SqlDialect.MYSQL.upsertQuery("file_metadata", "path", List.of("path", "size", "hash"));
+        Assertions.assertEquals(
+                "INSERT INTO file_metadata (path, size, hash) VALUES (?, ?, ?) AS new " +
+                        "ON DUPLICATE KEY UPDATE size = new.size, hash = new.hash",
+                query
+        );
+    }
+
+    @Test
+    void pathsUnderPatternTest() {
+        Assertions.assertEquals(
+                "dir!_1" + File.separator + "!%!!" + File.separator + "%",
+                SqlDialect.pathsUnderPattern("dir_1" + File.separator + "%!")
+        );
+        Assertions.assertEquals(
+                "dir" + File.separator + "%",
+                SqlDialect.pathsUnderPattern("dir" + File.separator)
+        );
+    }
+}
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import dao.ConfigManager;
 import model.config.DatabaseConfig;
+import model.config.ScanCheckpoint;
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedWriter;
@@ -13,6 +14,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class ConfigManagerTest {
 
@@ -54,4 +57,18 @@ class ConfigManagerTest {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void scanCheckpointTest() throws IOException {
+        ConfigManager configManager = new ConfigManager("checkpointTestTimestamp.txt");
+        ScanCheckpoint checkpoint = new ScanCheckpoint("/data", "MD5", 3, "/data/dir/file.txt", false);
+        assertEquals(Path.of(ConfigManager.CHECKPOINT_FILE_NAME).toAbsolutePath(), configManager.getCheckpointPath());
+
+        configManager.saveScanCheckpoint(checkpoint);
+        assertEquals(checkpoint, configManager.loadScanCheckpoint());
+
+        configManager.deleteScanCheckpoint();
+        assertFalse(Files.exists(configManager.getCheckpointPath()));
+        assertNull(configManager.loadScanCheckpoint());
+    }
+}
@@ -2,10 +2,16 @@ package model;
 
 import dao.ConfigManager;
 import dao.H2DatabaseSetup;
+import dao.ScanSessionDao;
+import dao.SchemaManager;
+import model.config.ScanCheckpoint;
+import model.config.ScanConfig;
 import model.metadata.DirMetadata;
 import dao.DirMetadataDao;
+import model.metadata.DuplicateGroup;
 import model.metadata.FileMetadata;
 import dao.FileMetadataDao;
+import model.hasher.Hash;
 import model.hasher.Hasher;
 import model.hasher.Md5Hasher;
 import org.h2.tools.Server;
@@ -13,19 +19,20 @@ import org.junit.jupiter.api.*;
 import model.searcher.ModifiedContentSearch;
 import model.searcher.TotalSearch;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-
-import static dao.DirMetadataDao.DIR_TB_NAME;
-import static dao.FileMetadataDao.FILE_TB_NAME;
+import java.util.Set;
 
 class FileManagerTest {
 
@@ -33,6 +40,7 @@ class FileManagerTest {
 
     DirMetadataDao dirMetadataDao;
     FileMetadataDao fileMetadataDao;
+    ScanSessionDao scanSessionDao;
 
     private static final String TEST_DIR_PATH = "DummyFolder1";
     private static final String TEST_TIMESTAMP_FILE_NAME = "lastRunTimestamp.txt";
@@ -48,24 +56,8 @@ class FileManagerTest {
         connection = H2DatabaseSetup.createConnection();
         dirMetadataDao = new DirMetadataDao(connection);
         fileMetadataDao = new FileMetadataDao(connection);
-        String createDirMetadataTableQuery = "CREATE TABLE " + DIR_TB_NAME +
-                "(id INT AUTO_INCREMENT PRIMARY KEY, " +
-                "path VARCHAR(255) NOT NULL UNIQUE, " +
-                "last_modified BIGINT NOT NULL, " +
-                "content_count INT NOT NULL);";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(createDirMetadataTableQuery)) {
-            pstmt.execute();
-        }
-        String createFileMetadataTableQuery = "CREATE TABLE " + FILE_TB_NAME +
-                "(id INT AUTO_INCREMENT PRIMARY KEY, " +
-                "path VARCHAR(255) NOT NULL UNIQUE, " +
-                "last_modified BIGINT NOT NULL, " +
-                "size BIGINT NOT NULL, " +
-                "hash VARCHAR(255) NOT NULL);";
-        try (PreparedStatement pstmt = connection.prepareStatement(createFileMetadataTableQuery)) {
-            pstmt.execute();
-        }
+        scanSessionDao = new ScanSessionDao(connection);
+        new SchemaManager(connection).createTables();
 
 
         try {
@@ -172,14 +164,7 @@ class FileManagerTest {
 
     @AfterEach
     public void teardown() throws SQLException, IOException {
-        String dropTableQuery = "DROP TABLE IF EXISTS " + DIR_TB_NAME + ";";
-        try (PreparedStatement pstmt = connection.prepareStatement(dropTableQuery)) {
-            pstmt.execute();
-        }
-        dropTableQuery = "DROP TABLE IF EXISTS " + FILE_TB_NAME + ";";
-        try (PreparedStatement pstmt = connection.prepareStatement(dropTableQuery)) {
-            pstmt.execute();
-        }
+        new SchemaManager(connection).dropTables();
         if (connection != null) {
             connection.close();
         }
@@ -205,8 +190,8 @@ class FileManagerTest {
         ConfigManager configManager = new ConfigManager();
         Hasher hasher = new Md5Hasher();
         FileManager fileManager = new FileManager(configManager, hasher);
-        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao);
-        List<FileMetadata> result = fileManager.getDuplicateFiles();
+        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        List<FileMetadata> result = duplicateFiles();
 
         ModifiedContentSearch modifiedContentSearch = new ModifiedContentSearch(TEST_DIR_PATH, configManager.getLastRunTimestamp());
         List<String> dirPaths = modifiedContentSearch.getDirPaths();
@@ -217,7 +202,7 @@ class FileManagerTest {
         List<FileMetadata> fileMetadataList = fileMetadataDao.getAll();
 
         Assertions.assertEquals(expectedDirMetadataList, dirMetadataList);
-        String hash = fileMetadataList.get(0).hash(); // There should be only one file in database, and all hash should be the same.
+        Hash hash = fileMetadataList.get(0).hash(); // There should be only one file in database, and all hash should be the same.
         for (FileMetadata fileMetadata : result) {
             Assertions.assertEquals(fileMetadata.hash(), hash);
         }
@@ -228,7 +213,7 @@ class FileManagerTest {
         ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
         Hasher hasher = new Md5Hasher();
         FileManager fileManager = new FileManager(configManager, hasher);
-        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
 
         TotalSearch totalSearch = new TotalSearch(TEST_DIR_PATH);
         List<String> dirPaths = totalSearch.getDirPaths();
@@ -243,4 +228,307 @@ class FileManagerTest {
         Assertions.assertEquals(expectedDirMetadataList, dirMetadataList);
         Assertions.assertEquals(expectedFileMetadataList, fileMetadataList);
     }
-}
\ No newline at end of file
+
+    @Test
+    void resumeUpdateAllTest() throws IOException {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        List<String> filePaths = new TotalSearch(TEST_DIR_PATH).getFilePaths();
+        String lastPath = filePaths.get(filePaths.size() / 2);
+        String rootPath = Path.of(TEST_DIR_PATH).toAbsolutePath().toString();
+        long scanId = scanSessionDao.start(rootPath).id();
+        configManager.saveScanCheckpoint(new ScanCheckpoint(rootPath, hasher.algorithm(), scanId, lastPath, false));
+
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao, true);
+
+        // Files up to the checkpoint were written by the interrupted scan, so they are skipped.
+        List<String> writtenPaths = fileMetadataDao.getAll().stream().map(FileMetadata::path).toList();
+        Assertions.assertEquals(filePaths.subList(filePaths.size() / 2 + 1, filePaths.size()), writtenPaths);
+        Assertions.assertEquals(lastPath, fileManager.getScanReport().getResumedAfter());
+        Assertions.assertNull(configManager.loadScanCheckpoint());
+    }
+
+    @Test
+    void updateAllParallelTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        ScanConfig scanConfig = new ScanConfig();
+        scanConfig.setWorkerCount(4);
+        scanConfig.setQueueBound(2);
+        FileManager fileManager = new FileManager(configManager, hasher, scanConfig);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        TotalSearch totalSearch = new TotalSearch(TEST_DIR_PATH);
+        List<FileMetadata> expectedFileMetadataList = totalSearch.getFilePaths().stream()
+                .map(f -> FileMetadata.create(f, hasher))
+                .toList();
+        Assertions.assertEquals(expectedFileMetadataList, fileMetadataDao.getAll());
+    }
+
+    @Test
+    void unreadableFileIsLeftDeferredTest() throws IOException {
+        Path readableFile = Paths.get(TEST_DIR_PATH, "ReadableFile.txt");
+        Path unreadableFile = Paths.get(TEST_DIR_PATH, "UnreadableFile.txt");
+        Files.writeString(readableFile, "readable!!".repeat(30));
+        Files.writeString(unreadableFile, "unreadable".repeat(30));
+        Hasher md5Hasher = new Md5Hasher();
+        // Hasher failing like a file removed between the scan and the hashing
+        Hasher hasher = new Hasher() {
+            @Override
+            public Hash makeHash(InputStream stream) {
+                try {
+                    byte[] content = stream.readAllBytes();
+                    if (new String(content).startsWith("unreadable")) {
+                        throw new IOException("removed");
+                    }
+                    return md5Hasher.makeHash(new ByteArrayInputStream(content));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public String algorithm() {
+                return md5Hasher.algorithm();
+            }
+        };
+
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        for (FileMetadata fileMetadata : fileMetadataDao.getAll()) {
+            if (fileMetadata.path().equals(readableFile.toAbsolutePath().toString())) {
+                Assertions.assertFalse(fileMetadata.isHashDeferred());
+            } else if (fileMetadata.path().equals(unreadableFile.toAbsolutePath().toString())) {
+                Assertions.assertTrue(fileMetadata.isHashDeferred());
+            }
+        }
+    }
+
+    @Test
+    void updateAllDefersUniqueSizeHashTest() throws IOException {
+        Path uniqueSizeFile = Paths.get(TEST_DIR_PATH, "UniqueSizeFile.txt");
+        Files.writeString(uniqueSizeFile, "B".repeat(123));
+
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        for (FileMetadata fileMetadata : fileMetadataDao.getAll()) {
+            if (fileMetadata.path().equals(uniqueSizeFile.toAbsolutePath().toString())) {
+                Assertions.assertTrue(fileMetadata.isHashDeferred());
+            } else {
+                Assertions.assertFalse(fileMetadata.isHashDeferred());
+            }
+        }
+    }
+
+    @Test
+    void updateAllSkipsUnchangedFilesTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        FileManager firstFileManager = new FileManager(configManager, hasher);
+        firstFileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        long firstHashedCount = firstFileManager.getScanReport().getHashedFileCount();
+        List<FileMetadata> expectedFileMetadataList = fileMetadataDao.getAll();
+
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        Assertions.assertTrue(firstHashedCount > 0);
+        Assertions.assertEquals(expectedFileMetadataList.size(), fileManager.getScanReport().getUnchangedFileCount());
+        Assertions.assertEquals(0, fileManager.getScanReport().getHashedFileCount());
+        Assertions.assertEquals(expectedFileMetadataList, fileMetadataDao.getAll());
+
+        ScanConfig scanConfig = new ScanConfig();
+        scanConfig.setParanoid(true);
+        FileManager paranoidFileManager = new FileManager(configManager, hasher, scanConfig);
+        paranoidFileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        Assertions.assertEquals(0, paranoidFileManager.getScanReport().getUnchangedFileCount());
+        Assertions.assertEquals(firstHashedCount, paranoidFileManager.getScanReport().getHashedFileCount());
+        Assertions.assertEquals(expectedFileMetadataList, fileMetadataDao.getAll());
+    }
+
+    @Test
+    void updateModifiedContentWithoutIndexTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        new FileManager(configManager, hasher).updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        FileManager preloadedFileManager = new FileManager(configManager, hasher);
+        preloadedFileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        Set<FileMetadata> preloadedResult = new HashSet<>(duplicateFiles());
+
+        ScanConfig scanConfig = new ScanConfig();
+        scanConfig.setIndexThreshold(0);
+        FileManager fileManager = new FileManager(configManager, hasher, scanConfig);
+        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        Assertions.assertTrue(preloadedFileManager.getScanReport().isIndexPreloaded());
+        Assertions.assertFalse(fileManager.getScanReport().isIndexPreloaded());
+        Assertions.assertEquals(preloadedResult, new HashSet<>(duplicateFiles()));
+    }
+
+    @Test
+    void removedFilesAreSweptByFullScanTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        new FileManager(configManager, hasher).updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        Path removedFile = Paths.get(TEST_DIR_PATH, "DummyFolder1", "DummyFile1.txt").toAbsolutePath();
+        Path removedDir = Paths.get(TEST_DIR_PATH, "DummyFolder2").toAbsolutePath();
+        Path keptFile = Paths.get(TEST_DIR_PATH, "DummyFolder3", "DummyFile1.txt").toAbsolutePath();
+        long fileCount = fileMetadataDao.count();
+        long removedDirFileCount = fileMetadataDao.getAllPath().stream()
+                .filter(path -> path.startsWith(removedDir + File.separator))
+                .count();
+        removedFile.toFile().delete();
+        deleteDirectory(removedDir.toFile());
+
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        Assertions.assertTrue(fileMetadataDao.searchByPath(removedFile.toString()).isEmpty());
+        Assertions.assertTrue(dirMetadataDao.searchByPath(removedDir.toString()).isEmpty());
+        Assertions.assertEquals(1, fileMetadataDao.searchByPath(keptFile.toString()).size());
+        Assertions.assertEquals(fileCount - 1 - removedDirFileCount, fileMetadataDao.count());
+        Assertions.assertEquals(1 + removedDirFileCount, fileManager.getScanReport().getRemovedFileCount());
+    }
+
+    @Test
+    void removedFilesAreSweptByUpdateScanTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        new FileManager(configManager, hasher).updateAll(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        Path removedFile = Paths.get(TEST_DIR_PATH, "DummyFolder1", "DummyFile1.txt").toAbsolutePath();
+        Path removedDir = Paths.get(TEST_DIR_PATH, "DummyFolder2").toAbsolutePath();
+        Path nestedDir = removedDir.resolve("DummyFolder1");
+        Path keptFile = Paths.get(TEST_DIR_PATH, "DummyFolder3", "DummyFile1.txt").toAbsolutePath();
+        removedFile.toFile().delete();
+        deleteDirectory(removedDir.toFile());
+
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        Assertions.assertTrue(fileMetadataDao.searchByPath(removedFile.toString()).isEmpty());
+        Assertions.assertTrue(fileMetadataDao.getAllPath().stream()
+                .noneMatch(path -> path.startsWith(removedDir + File.separator)));
+        Assertions.assertTrue(dirMetadataDao.searchByPath(removedDir.toString()).isEmpty());
+        Assertions.assertTrue(dirMetadataDao.searchByPath(nestedDir.toString()).isEmpty());
+        Assertions.assertEquals(1, fileMetadataDao.searchByPath(keptFile.toString()).size());
+        Assertions.assertTrue(fileManager.getScanReport().getRemovedDirCount() > 0);
+    }
+
+    @Test
+    void hardLinksAreNotDuplicatesTest() throws IOException {
+        Path original = Paths.get(TEST_DIR_PATH, "LinkedFile.txt").toAbsolutePath();
+        Path link = Paths.get(TEST_DIR_PATH, "DummyFolder1", "LinkedFile.txt").toAbsolutePath();
+        Files.writeString(original, "C".repeat(321));
+        Files.createLink(link, original);
+
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+
+        FileMetadata originalMetadata = fileMetadataDao.searchByPath(original.toString()).get(0);
+        FileMetadata linkMetadata = fileMetadataDao.searchByPath(link.toString()).get(0);
+        Assertions.assertNotNull(originalMetadata.fileKey());
+        Assertions.assertEquals(originalMetadata.fileKey(), linkMetadata.fileKey());
+        // Links of one physical file are never hashed, because their size does not collide with another file.
+        Assertions.assertTrue(originalMetadata.isHashDeferred());
+        Assertions.assertTrue(linkMetadata.isHashDeferred());
+        Assertions.assertTrue(duplicateFiles().stream()
+                .noneMatch(metadata -> metadata.path().equals(link.toString())));
+    }
+
+    @Test
+    void deleteDuplicateFilesTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        List<DuplicateGroup> groups = fileMetadataDao.findDuplicateGroups();
+        long duplicateCount = groups.stream().mapToLong(group -> group.members().size() - 1).sum();
+        long fileCount = fileMetadataDao.count();
+        Assertions.assertTrue(duplicateCount > 0);
+
+        ResolutionReport dryRunReport = fileManager.deleteDuplicateFiles(fileMetadataDao, true);
+        Assertions.assertTrue(dryRunReport.isDryRun());
+        Assertions.assertEquals(duplicateCount, dryRunReport.getResolvedFileCount());
+        Assertions.assertEquals(fileCount, fileMetadataDao.count());
+        for (DuplicateGroup group : groups) {
+            for (FileMetadata member : group.members()) {
+                Assertions.assertTrue(Files.exists(Path.of(member.path())));
+            }
+        }
+
+        ResolutionReport report = fileManager.deleteDuplicateFiles(fileMetadataDao, false);
+        Assertions.assertTrue(report.getFailures().isEmpty());
+        Assertions.assertEquals(duplicateCount, report.getResolvedFileCount());
+        Assertions.assertEquals(fileCount - duplicateCount, fileMetadataDao.count());
+        for (DuplicateGroup group : groups) {
+            Assertions.assertTrue(Files.exists(Path.of(group.members().get(0).path())));
+            for (FileMetadata member : group.members().subList(1, group.members().size())) {
+                Assertions.assertFalse(Files.exists(Path.of(member.path())));
+            }
+        }
+    }
+
+    @Test
+    void linkDuplicateFilesTwiceTest() {
+        ConfigManager configManager = new ConfigManager(TEST_TIMESTAMP_FILE_NAME);
+        Hasher hasher = new Md5Hasher();
+        FileManager fileManager = new FileManager(configManager, hasher);
+        fileManager.updateModifiedContent(TEST_DIR_PATH, dirMetadataDao, fileMetadataDao, scanSessionDao);
+        long reclaimableBytes = fileMetadataDao.sumReclaimableBytes();
+        Assertions.assertTrue(reclaimableBytes > 0);
+
+        ResolutionReport report = fileManager.linkDuplicateFiles(fileMetadataDao, false);
+        Assertions.assertTrue(report.getFailures().isEmpty());
+        Assertions.assertEquals(reclaimableBytes, report.getFreedBytes());
+        Assertions.assertEquals(0, fileMetadataDao.sumReclaimableBytes());
+
+        // Linked files share the data of the kept file, so the next run has nothing to link.
+        ResolutionReport secondReport = fileManager.linkDuplicateFiles(fileMetadataDao, false);
+        Assertions.assertEquals(0, secondReport.getResolvedFileCount());
+        Assertions.assertEquals(0, secondReport.getFreedBytes());
+    }
+
+    @Test
+    void updateChangedPathsTest() throws IOException {
+        FileManager fileManager = new FileManager(new ConfigManager(TEST_TIMESTAMP_FILE_NAME), new Md5Hasher());
+        String content = "changed".repeat(1000);
+        Path changed = Files.writeString(Path.of(TEST_DIR_PATH, "changed.txt"), content);
+        Path copy = Path.of(TEST_DIR_PATH, "copy.txt");
+
+        Set<Long> changedSizes = fileManager.updateChangedPaths(List.of(changed), List.of(), dirMetadataDao, fileMetadataDao);
+        Assertions.assertEquals(Set.of((long) content.length()), changedSizes);
+        Assertions.assertTrue(fileMetadataDao.searchByPath(changed.toAbsolutePath().toString()).get(0).isHashDeferred());
+
+        // Only the size of the copy is checked, and the files with that size are hashed.
+        Files.writeString(copy, content);
+        changedSizes = fileManager.updateChangedPaths(List.of(copy), List.of(), dirMetadataDao, fileMetadataDao);
+        Assertions.assertFalse(fileMetadataDao.searchByPath(changed.toAbsolutePath().toString()).get(0).isHashDeferred());
+        Assertions.assertEquals(1, fileMetadataDao.countDuplicateGroups(changedSizes));
+        Assertions.assertEquals(content.length(), fileMetadataDao.sumReclaimableBytes(changedSizes));
+
+        Files.delete(copy);
+        changedSizes = fileManager.updateChangedPaths(List.of(copy), List.of(), dirMetadataDao, fileMetadataDao);
+        Assertions.assertEquals(Set.of((long) content.length()), changedSizes);
+        Assertions.assertEquals(0, fileMetadataDao.countDuplicateGroups(changedSizes));
+    }
+
+    /**
+     * Get duplicate files of all groups in the database.
+     * @return duplicate files
+     */
+    private List<FileMetadata> duplicateFiles() {
+        return fileMetadataDao.findDuplicateGroups().stream()
+                .flatMap(group -> group.members().stream())
+                .toList();
+    }
+}
@@ -0,0 +1,54 @@
+package model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class HashWorkerPoolTest {
+
+    @Test
+    void runTest() {
+        List<Integer> items = IntStream.range(0, 1000).boxed().toList();
+        List<Integer> results = new ArrayList<>();
+        try (HashWorkerPool pool = new HashWorkerPool(4, 8)) {
+            pool.run(items, item -> item * 2, results::add);
+        }
+        List<Integer> expected = items.stream().map(item -> item * 2).toList();
+        Assertions.assertEquals(expected, results.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void queueBoundTest() {
+        final int queueBound = 3;
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        Iterable<Integer> items = () -> IntStream.range(0, 100)
+                .peek(item -> {
+                    // Items must not be pulled faster than the results are written.
+                    Assertions.assertTrue(pulled.incrementAndGet() - written.get() <= queueBound);
+                })
+                .iterator();
+        try (HashWorkerPool pool = new HashWorkerPool(2, queueBound)) {
+            pool.run(items, item -> item, item -> written.incrementAndGet());
+        }
+        Assertions.assertEquals(100, written.get());
+    }
+
+    @Test
+    void taskFailureTest() {
+        try (HashWorkerPool pool = new HashWorkerPool(2, 2)) {
+            Assertions.assertThrows(RuntimeException.class, () -> pool.run(
+                    List.of(1, 2, 3),
+                    item -> {
+                        throw new IllegalStateException("failed");
+                    },
+                    item -> {}
+            ));
+        }
+    }
+}
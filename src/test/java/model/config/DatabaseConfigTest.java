@@ -33,4 +33,22 @@ class DatabaseConfigTest {
         DatabaseConfig databaseConfig2 = new DatabaseConfig(json);
         assertEquals(databaseConfig, databaseConfig2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deserializeWithoutPoolOptionsTest() {
+        String json = "{\"databaseUrl\": \"localhost:3306\", \"databaseUser\": \"root\", \"databasePassword\": \"root\"}";
+        DatabaseConfig databaseConfig = new DatabaseConfig(json);
+        assertEquals(DatabaseConfig.DEFAULT_JDBC_URL_TEMPLATE, databaseConfig.getJdbcUrlTemplate());
+        assertEquals(DatabaseConfig.DEFAULT_POOL_SIZE, databaseConfig.getPoolSize());
+        assertEquals("jdbc:mysql://localhost:3306/duptest?serverTimezone=UTC&useSSL=false", databaseConfig.getJdbcUrl());
+    }
+
+    @Test
+    void jdbcUrlTemplateTest() {
+        DatabaseConfig databaseConfig = new DatabaseConfig("test", "sa", "");
+        databaseConfig.setJdbcUrlTemplate("jdbc:h2:mem:{url};DB_CLOSE_DELAY=-1");
+        assertEquals("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1", databaseConfig.getJdbcUrl());
+        assertThrows(IllegalArgumentException.class, () -> databaseConfig.setJdbcUrlTemplate("h2:mem:test"));
+        assertThrows(IllegalArgumentException.class, () -> databaseConfig.setPoolSize(0));
+    }
+}
@@ -0,0 +1,46 @@
+package model.hasher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class Blake3HasherTest {
+
+    private final Blake3Hasher hasher = new Blake3Hasher();
+
+    @Test
+    void knownHashTest() {
+        Assertions.assertEquals(
+                "AF1349B9F5F9A1A6A0404DEA36DCC9499BCB25C9ADC112B7CC9A93CAE41F3262",
+                hasher.makeHash(new ByteArrayInputStream(new byte[0])).toHex()
+        );
+        Assertions.assertEquals(
+                "6437B3AC38465133FFB63B75273A8DB548C558465D79DB03FD359C6CD5BD9D85",
+                hasher.makeHash(new ByteArrayInputStream("abc".getBytes(StandardCharsets.US_ASCII))).toHex()
+        );
+    }
+
+    @Test
+    void makeHashFromPathTest() throws Exception {
+        Path testFile = Files.createTempFile("makeHashFromPathTest", ".bin");
+        Path emptyFile = Files.createTempFile("makeHashFromPathTest", ".empty");
+        try {
+            byte[] content = new byte[10_000];
+            new Random(42).nextBytes(content);
+            Files.write(testFile, content);
+            // Buffer smaller than the file, so the file is read in several times.
+            Blake3Hasher smallBufferHasher = new Blake3Hasher(100);
+
+            Assertions.assertEquals(hasher.makeHash(new ByteArrayInputStream(content)), smallBufferHasher.makeHash(testFile));
+            Assertions.assertEquals(hasher.makeHash(new ByteArrayInputStream(new byte[0])), smallBufferHasher.makeHash(emptyFile));
+        } finally {
+            Files.deleteIfExists(testFile);
+            Files.deleteIfExists(emptyFile);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package model.hasher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.Random;
+
+class HashTest {
+
+    @Test
+    void toHexTest() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Assertions.assertEquals(HexFormat.of().withUpperCase().formatHex(bytes), Hash.of(bytes).toHex());
+    }
+
+    @Test
+    void fromHexTest() {
+        byte[] bytes = new byte[16];
+        new Random(3).nextBytes(bytes);
+        Hash hash = Hash.of(bytes);
+        Assertions.assertEquals(hash, Hash.fromHex(hash.toHex()));
+        Assertions.assertEquals(hash, Hash.fromHex(hash.toHex().toLowerCase()));
+        Assertions.assertEquals(hash.hashCode(), Hash.fromHex(hash.toHex()).hashCode());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Hash.fromHex("ABC"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Hash.fromHex("XY"));
+    }
+
+    @Test
+    void immutableTest() {
+        byte[] bytes = {1, 2, 3};
+        Hash hash = Hash.of(bytes);
+        bytes[0] = 9;
+        hash.toBytes()[1] = 9;
+        Assertions.assertEquals("010203", hash.toHex());
+        Assertions.assertNull(Hash.ofNullable(null));
+    }
+}
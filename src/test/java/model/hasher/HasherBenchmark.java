@@ -0,0 +1,76 @@
+package model.hasher;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark comparing hashing a file through an input stream and through a file channel.
+ * Run with the size of the test file in MiB, e.g. {@code java model.hasher.HasherBenchmark 1024}.
+ * The file is read several times, so it is mostly in the page cache and the hashing cost is measured.
+ */
+public class HasherBenchmark {
+
+    private static final int DEFAULT_FILE_SIZE_MIB = 256;
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int fileSizeMib = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILE_SIZE_MIB;
+        Path file = Files.createTempFile("hasher-benchmark", ".bin");
+        try {
+            writeRandomFile(file, fileSizeMib);
+            Md5Hasher md5Hasher = new Md5Hasher();
+            measure("MD5 stream (1 KiB reads)", fileSizeMib, () -> md5Hasher.makeHash(open(file)));
+            measure("MD5 buffered stream", fileSizeMib, () -> md5Hasher.makeHash(new BufferedInputStream(open(file), 1024 * 1024)));
+            for (int bufferSize : new int[]{64 * 1024, 1024 * 1024, 8 * 1024 * 1024}) {
+                Md5Hasher channelHasher = new Md5Hasher(bufferSize);
+                measure("MD5 channel (" + bufferSize / 1024 + " KiB buffer)", fileSizeMib, () -> channelHasher.makeHash(file));
+            }
+            Xxh64Hasher xxh64Hasher = new Xxh64Hasher();
+            measure("XXH64 path", fileSizeMib, () -> xxh64Hasher.makeHash(file));
+            Blake3Hasher blake3Hasher = new Blake3Hasher();
+            measure("BLAKE3 path", fileSizeMib, () -> blake3Hasher.makeHash(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void writeRandomFile(Path file, int fileSizeMib) throws IOException {
+        byte[] chunk = new byte[1024 * 1024];
+        Random random = new Random(0);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < fileSizeMib; i++) {
+                random.nextBytes(chunk);
+                out.write(chunk);
+            }
+        }
+    }
+
+    private static InputStream open(Path file) {
+        try {
+            return new FileInputStream(file.toFile());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void measure(String name, int fileSizeMib, Supplier<Hash> task) {
+        // First round warms up the JIT and the page cache.
+        Hash hash = task.get();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double mibPerSecond = fileSizeMib / (best / 1e9);
+        System.out.printf("%-36s %10.1f MiB/s  %s%n", name, mibPerSecond, hash);
+    }
+}
@@ -0,0 +1,16 @@
+package model.hasher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HashersTest {
+
+    @Test
+    void createTest() {
+        for (String algorithm : Hashers.ALGORITHMS) {
+            Assertions.assertEquals(algorithm, Hashers.create(algorithm).algorithm());
+        }
+        Assertions.assertEquals(Blake3Hasher.ALGORITHM, Hashers.create(" blake3 ").algorithm());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Hashers.create("SHA-0"));
+    }
+}
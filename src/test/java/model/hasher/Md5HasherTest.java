@@ -4,7 +4,10 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
+import java.util.Random;
 
 class Md5HasherTest {
 
@@ -20,7 +23,7 @@ class Md5HasherTest {
         }
         String expectedDigest = temp.toString();
         Md5Hasher md5Hasher = new Md5Hasher();
-        String testedDigest = md5Hasher.makeHash(new ByteArrayInputStream(testString.getBytes()));
+        String testedDigest = md5Hasher.makeHash(new ByteArrayInputStream(testString.getBytes())).toHex();
 
         Assertions.assertEquals(expectedDigest, testedDigest);
     }
@@ -47,7 +50,7 @@ class Md5HasherTest {
 
         FileInputStream fileInputStream2 = new FileInputStream(testFileName);
         Md5Hasher md5Hasher = new Md5Hasher();
-        String testedDigest = md5Hasher.makeHash(fileInputStream2);
+        String testedDigest = md5Hasher.makeHash(fileInputStream2).toHex();
         fileInputStream2.close();
 
         Assertions.assertEquals(expectedDigest, testedDigest);
@@ -55,4 +58,23 @@ class Md5HasherTest {
         File testFile = new File(testFileName);
         testFile.delete();
     }
-}
\ No newline at end of file
+
+    @Test
+    void makeHashFromPathTest() throws Exception {
+        Path testFile = Files.createTempFile("makeHashFromPathTest", ".bin");
+        Path emptyFile = Files.createTempFile("makeHashFromPathTest", ".empty");
+        try {
+            byte[] content = new byte[10_000];
+            new Random(42).nextBytes(content);
+            Files.write(testFile, content);
+            // Buffer smaller than the file, so the file is read in several times.
+            Md5Hasher md5Hasher = new Md5Hasher(1000);
+
+            Assertions.assertEquals(md5Hasher.makeHash(new ByteArrayInputStream(content)), md5Hasher.makeHash(testFile));
+            Assertions.assertEquals(md5Hasher.makeHash(new ByteArrayInputStream(new byte[0])), md5Hasher.makeHash(emptyFile));
+        } finally {
+            Files.deleteIfExists(testFile);
+            Files.deleteIfExists(emptyFile);
+        }
+    }
+}
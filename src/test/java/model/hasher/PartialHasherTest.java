@@ -0,0 +1,79 @@
+package model.hasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class PartialHasherTest {
+
+    private static final int SAMPLE_SIZE = 16;
+    private static final int STRIPE_COUNT = 1;
+    private static final Path TEST_FILE_1 = Path.of("partialHasherTest1.bin");
+    private static final Path TEST_FILE_2 = Path.of("partialHasherTest2.bin");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(TEST_FILE_1);
+        Files.deleteIfExists(TEST_FILE_2);
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) 'A');
+        return content;
+    }
+
+    @Test
+    void coversWholeFileTest() {
+        PartialHasher partialHasher = new PartialHasher(new Md5Hasher(), SAMPLE_SIZE, STRIPE_COUNT);
+        Assertions.assertTrue(partialHasher.coversWholeFile(SAMPLE_SIZE * 3));
+        Assertions.assertFalse(partialHasher.coversWholeFile(SAMPLE_SIZE * 3 + 1));
+    }
+
+    @Test
+    void smallFileTest() throws IOException {
+        byte[] content = createContent(SAMPLE_SIZE);
+        Files.write(TEST_FILE_1, content);
+        Md5Hasher md5Hasher = new Md5Hasher();
+        PartialHasher partialHasher = new PartialHasher(md5Hasher, SAMPLE_SIZE, STRIPE_COUNT);
+
+        Hash expected = md5Hasher.makeHash(new ByteArrayInputStream(content));
+        Assertions.assertEquals(expected, partialHasher.makePartialHash(TEST_FILE_1.toString()));
+    }
+
+    @Test
+    void differenceOutsideSamplesTest() throws IOException {
+        byte[] content1 = createContent(SAMPLE_SIZE * 10);
+        byte[] content2 = createContent(SAMPLE_SIZE * 10);
+        // Between the head and the middle stripe.
+        content2[SAMPLE_SIZE * 2] = 'B';
+        Files.write(TEST_FILE_1, content1);
+        Files.write(TEST_FILE_2, content2);
+        PartialHasher partialHasher = new PartialHasher(new Md5Hasher(), SAMPLE_SIZE, STRIPE_COUNT);
+
+        Assertions.assertEquals(
+                partialHasher.makePartialHash(TEST_FILE_1.toString()),
+                partialHasher.makePartialHash(TEST_FILE_2.toString()));
+    }
+
+    @Test
+    void differenceInSamplesTest() throws IOException {
+        byte[] content1 = createContent(SAMPLE_SIZE * 10);
+        byte[] content2 = createContent(SAMPLE_SIZE * 10);
+        // Last byte of the tail.
+        content2[content2.length - 1] = 'B';
+        Files.write(TEST_FILE_1, content1);
+        Files.write(TEST_FILE_2, content2);
+        PartialHasher partialHasher = new PartialHasher(new Md5Hasher(), SAMPLE_SIZE, STRIPE_COUNT);
+
+        Assertions.assertNotEquals(
+                partialHasher.makePartialHash(TEST_FILE_1.toString()),
+                partialHasher.makePartialHash(TEST_FILE_2.toString()));
+    }
+}
@@ -0,0 +1,63 @@
+package model.hasher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class Xxh64HasherTest {
+
+    private final Xxh64Hasher hasher = new Xxh64Hasher();
+
+    @Test
+    void knownHashTest() {
+        Assertions.assertEquals("EF46DB3751D8E999", makeHash(""));
+        Assertions.assertEquals("44BC2CF5AD770999", makeHash("abc"));
+        Assertions.assertEquals("FBCEA83C8A378BF1", makeHash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void shortReadTest() {
+        byte[] data = new byte[200_000];
+        new Random(1).nextBytes(data);
+        Hash expected = hasher.makeHash(new ByteArrayInputStream(data));
+        // Stream giving a few bytes at once must give the same hash.
+        InputStream slowStream = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        Assertions.assertEquals(expected, hasher.makeHash(slowStream));
+    }
+
+    @Test
+    void makeHashFromPathTest() throws Exception {
+        Path testFile = Files.createTempFile("makeHashFromPathTest", ".bin");
+        Path emptyFile = Files.createTempFile("makeHashFromPathTest", ".empty");
+        try {
+            byte[] content = new byte[10_000];
+            new Random(42).nextBytes(content);
+            Files.write(testFile, content);
+            // Buffer smaller than the file, so the file is read in several times.
+            Xxh64Hasher smallBufferHasher = new Xxh64Hasher(100);
+
+            Assertions.assertEquals(hasher.makeHash(new ByteArrayInputStream(content)), smallBufferHasher.makeHash(testFile));
+            Assertions.assertEquals(hasher.makeHash(new ByteArrayInputStream(new byte[0])), smallBufferHasher.makeHash(emptyFile));
+        } finally {
+            Files.deleteIfExists(testFile);
+            Files.deleteIfExists(emptyFile);
+        }
+    }
+
+    private String makeHash(String value) {
+        return hasher.makeHash(new ByteArrayInputStream(value.getBytes(StandardCharsets.US_ASCII))).toHex();
+    }
+}
@@ -0,0 +1,86 @@
+package model.index;
+
+import model.hasher.Hash;
+import model.metadata.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PreloadedMetadataIndexTest {
+
+    @Test
+    void searchByPathTest() {
+        PreloadedMetadataIndex index = new PreloadedMetadataIndex(0);
+        FileMetadata fileMetadata1 = new FileMetadata("Users/John/Desktop/test.txt", 1, 10, hash("AAAA"), hash("AA"));
+        FileMetadata fileMetadata2 = new FileMetadata("Users/John/Desktop/test2.txt", 2, 20, null);
+        index.put(fileMetadata1);
+        index.put(fileMetadata2);
+
+        Assertions.assertEquals(2, index.size());
+        Assertions.assertEquals(fileMetadata1, index.searchByPath(fileMetadata1.path()));
+        Assertions.assertEquals(fileMetadata2, index.searchByPath(fileMetadata2.path()));
+        Assertions.assertNull(index.searchByPath("Users/John/Desktop/none.txt"));
+    }
+
+    @Test
+    void growTest() {
+        PreloadedMetadataIndex index = new PreloadedMetadataIndex(0);
+        // More files than the initial capacity.
+        for (int i = 0; i < 100; i++) {
+            index.put(new FileMetadata("file" + i, i, 10, i % 2 == 0 ? hash("E0E0") : hash("0DD0")));
+        }
+        index.put(new FileMetadata("deferred", 0, 10, null));
+
+        Assertions.assertEquals(101, index.size());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(i % 2 == 0 ? hash("E0E0") : hash("0DD0"), index.searchByPath("file" + i).hash());
+        }
+        Assertions.assertNull(index.searchByPath("deferred").hash());
+    }
+
+    @Test
+    void collidingPathsTest() {
+        PreloadedMetadataIndex index = new PreloadedMetadataIndex(0);
+        // "Aa" and "BB" have the same hash code.
+        FileMetadata fileMetadata1 = new FileMetadata("Aa", 1, 10, hash("AAAA"));
+        FileMetadata fileMetadata2 = new FileMetadata("BB", 2, 20, hash("BBBB"));
+        index.put(fileMetadata1);
+        index.put(fileMetadata2);
+
+        Assertions.assertEquals(2, index.size());
+        Assertions.assertEquals(fileMetadata1, index.searchByPath("Aa"));
+        Assertions.assertEquals(fileMetadata2, index.searchByPath("BB"));
+        Assertions.assertNull(index.searchByPath("AaBB"));
+    }
+
+    @Test
+    void putReplacesTest() {
+        PreloadedMetadataIndex index = new PreloadedMetadataIndex(0);
+        index.put(new FileMetadata("file1", 1, 10, hash("AAAA")));
+        index.put(new FileMetadata("file2", 1, 10, hash("AAAA")));
+        FileMetadata modified = new FileMetadata("file1", 2, 20, null);
+        index.put(modified);
+
+        Assertions.assertEquals(2, index.size());
+        Assertions.assertEquals(modified, index.searchByPath("file1"));
+
+        FileMetadata hashed = new FileMetadata("file1", 2, 20, hash("BBBB"));
+        index.put(hashed);
+        Assertions.assertEquals(2, index.size());
+        Assertions.assertEquals(hashed, index.searchByPath("file1"));
+        Assertions.assertEquals(hash("AAAA"), index.searchByPath("file2").hash());
+    }
+
+    @Test
+    void estimatedMemoryBytesTest() {
+        PreloadedMetadataIndex index = new PreloadedMetadataIndex(0);
+        long emptyBytes = index.estimatedMemoryBytes();
+        for (int i = 0; i < 100; i++) {
+            index.put(new FileMetadata("file" + i, i, 10, hash(String.format("%04X", i))));
+        }
+        Assertions.assertTrue(index.estimatedMemoryBytes() > emptyBytes);
+    }
+
+    private static Hash hash(String hex) {
+        return Hash.fromHex(hex);
+    }
+}
@@ -0,0 +1,47 @@
+package model.metadata;
+
+import model.hasher.Hash;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateGroupTest {
+
+    @Test
+    void reclaimableBytesTest() {
+        Hash hash = Hash.fromHex("1234567890");
+        DuplicateGroup group = new DuplicateGroup(hash, 100, List.of(
+                new FileMetadata("a.txt", 1, 100, hash, null, "inode1"),
+                new FileMetadata("b.txt", 1, 100, hash, null, "inode2"),
+                new FileMetadata("c.txt", 1, 100, hash, null, "inode3")
+        ));
+        assertEquals(3, group.physicalFileCount());
+        assertEquals(200, group.reclaimableBytes());
+    }
+
+    @Test
+    void hardLinksAreNotReclaimableTest() {
+        Hash hash = Hash.fromHex("1234567890");
+        DuplicateGroup group = new DuplicateGroup(hash, 100, List.of(
+                new FileMetadata("a.txt", 1, 100, hash, null, "inode1"),
+                new FileMetadata("b.txt", 1, 100, hash, null, "inode1"),
+                new FileMetadata("c.txt", 1, 100, hash, null, "inode2")
+        ));
+        assertEquals(2, group.physicalFileCount());
+        assertEquals(100, group.reclaimableBytes());
+    }
+
+    @Test
+    void reflinksAreNotReclaimableTest() {
+        Hash hash = Hash.fromHex("1234567890");
+        DuplicateGroup group = new DuplicateGroup(hash, 100, List.of(
+                new FileMetadata("a.txt", 1, 100, hash, null, "inode1"),
+                new FileMetadata("b.txt", 1, 100, hash, null, "inode2", "inode1"),
+                new FileMetadata("c.txt", 1, 100, hash, null, "inode3", "inode1")
+        ));
+        assertEquals(1, group.physicalFileCount());
+        assertEquals(0, group.reclaimableBytes());
+    }
+}
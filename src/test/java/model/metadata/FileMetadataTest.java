@@ -1,5 +1,6 @@
 package model.metadata;
 
+import model.hasher.Hash;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -12,10 +13,10 @@ class FileMetadataTest {
                 "C:\\Users\\altai\\Desktop\\test.txt",
                 4321,
                 1234,
-                "123456789"
+                Hash.fromHex("1234567890")
         );
         String expected = "FileMetadata{path='C:\\Users\\altai\\Desktop\\test.txt', " +
-                "lastModified=4321, size=1234, hash='123456789'}";
+                "lastModified=4321, size=1234, hash='1234567890'}";
         assertEquals(expected, fileMetadata.toString());
     }
 }
\ No newline at end of file
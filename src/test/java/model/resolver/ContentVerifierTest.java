@@ -0,0 +1,116 @@
+package model.resolver;
+
+import model.hasher.Hash;
+import model.metadata.DuplicateGroup;
+import model.metadata.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentVerifierTest {
+
+    private static final Hash TEST_HASH = Hash.fromHex("1234567890");
+
+    private Path testDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        testDir = Files.createTempDirectory("content-verifier-test");
+    }
+
+    @AfterEach
+    void teardown() {
+        File[] files = testDir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        testDir.toFile().delete();
+    }
+
+    private FileMetadata createFile(String name, String content) throws IOException {
+        Path path = Files.writeString(testDir.resolve(name), content);
+        return FileMetadata.create(path.toString());
+    }
+
+    @Test
+    void identicalFilesTest() throws IOException {
+        String content = "A".repeat(1000);
+        DuplicateGroup group = new DuplicateGroup(TEST_HASH, 1000, List.of(
+                createFile("a.txt", content),
+                createFile("b.txt", content),
+                createFile("c.txt", content)
+        ));
+
+        // Buffer smaller than the files, so the files are compared in several chunks.
+        List<DuplicateGroup> result = new ContentVerifier(64).verify(group);
+
+        assertEquals(List.of(group), result);
+    }
+
+    @Test
+    void differentFilesAreSplitTest() throws IOException {
+        String content = "A".repeat(1000);
+        String otherContent = "A".repeat(999) + "B";
+        FileMetadata a = createFile("a.txt", content);
+        FileMetadata b = createFile("b.txt", otherContent);
+        FileMetadata c = createFile("c.txt", content);
+        FileMetadata d = createFile("d.txt", otherContent);
+        FileMetadata e = createFile("e.txt", "B".repeat(1000));
+        DuplicateGroup group = new DuplicateGroup(TEST_HASH, 1000, List.of(a, b, c, d, e));
+
+        List<DuplicateGroup> result = new ContentVerifier(64).verify(group);
+
+        assertEquals(2, result.size());
+        assertEquals(List.of(a, c), result.get(0).members());
+        assertEquals(List.of(b, d), result.get(1).members());
+    }
+
+    @Test
+    void missingFileIsLeftOutTest() throws IOException {
+        String content = "A".repeat(100);
+        FileMetadata a = createFile("a.txt", content);
+        FileMetadata b = createFile("b.txt", content);
+        FileMetadata missing = createFile("missing.txt", content);
+        Files.delete(Path.of(missing.path()));
+
+        List<DuplicateGroup> result = new ContentVerifier(64).verify(
+                new DuplicateGroup(TEST_HASH, 100, List.of(a, missing, b)));
+
+        assertEquals(1, result.size());
+        assertEquals(List.of(a, b), result.get(0).members());
+    }
+
+    @Test
+    void truncatedFileIsLeftOutTest() throws IOException {
+        String content = "A".repeat(128);
+        FileMetadata a = createFile("a.txt", content);
+        FileMetadata b = createFile("b.txt", content);
+        Files.writeString(Path.of(b.path()), "A".repeat(64));
+
+        List<DuplicateGroup> result = new ContentVerifier(64).verify(
+                new DuplicateGroup(TEST_HASH, 128, List.of(a, b)));
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void readerBufferSizeTest() {
+        ContentVerifier verifier = new ContentVerifier(1024 * 1024);
+
+        // Small groups use the whole buffer, and large groups share the budget.
+        assertEquals(1024 * 1024, verifier.readerBufferSize(2));
+        assertEquals(ContentVerifier.READ_BUDGET / ContentVerifier.MAX_OPEN_FILES,
+                verifier.readerBufferSize(ContentVerifier.MAX_OPEN_FILES));
+        assertEquals(64, new ContentVerifier(64).readerBufferSize(ContentVerifier.MAX_OPEN_FILES));
+    }
+}
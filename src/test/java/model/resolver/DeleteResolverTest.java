@@ -0,0 +1,72 @@
+package model.resolver;
+
+import model.metadata.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeleteResolverTest {
+
+    private static final String TEST_CONTENT = "duplicated content";
+
+    private Path testDir;
+
+    private FileMetadata original;
+
+    private FileMetadata duplicate;
+
+    @BeforeEach
+    void setup() throws IOException {
+        testDir = Files.createTempDirectory("delete-resolver-test");
+        Path originalPath = Files.writeString(testDir.resolve("original.txt"), TEST_CONTENT);
+        Path duplicatePath = Files.writeString(testDir.resolve("duplicate.txt"), TEST_CONTENT);
+        original = FileMetadata.create(originalPath.toString());
+        duplicate = FileMetadata.create(duplicatePath.toString());
+    }
+
+    @AfterEach
+    void teardown() {
+        File[] files = testDir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        testDir.toFile().delete();
+    }
+
+    @Test
+    void deleteTest() throws IOException {
+        assertNull(new DeleteResolver().resolve(original, duplicate));
+
+        assertFalse(Files.exists(Path.of(duplicate.path())));
+        assertTrue(Files.exists(Path.of(original.path())));
+    }
+
+    @Test
+    void removedOriginalTest() throws IOException {
+        Files.delete(Path.of(original.path()));
+
+        assertThrows(IOException.class, () -> new DeleteResolver().resolve(original, duplicate));
+        assertEquals(TEST_CONTENT, Files.readString(Path.of(duplicate.path())));
+    }
+
+    @Test
+    void rewrittenOriginalTest() throws IOException {
+        // Same size, but written after the scan.
+        Path originalPath = Path.of(original.path());
+        Files.writeString(originalPath, "x".repeat(TEST_CONTENT.length()));
+        Files.setLastModifiedTime(originalPath, FileTime.fromMillis(original.lastModified() + 1000));
+
+        assertThrows(IOException.class, () -> new DeleteResolver().resolve(original, duplicate));
+        assertEquals(TEST_CONTENT, Files.readString(Path.of(duplicate.path())));
+    }
+}
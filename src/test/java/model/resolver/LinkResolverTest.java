@@ -0,0 +1,90 @@
+package model.resolver;
+
+import model.metadata.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkResolverTest {
+
+    private static final String TEST_CONTENT = "duplicated content";
+
+    private Path testDir;
+
+    private FileMetadata original;
+
+    private FileMetadata duplicate;
+
+    @BeforeEach
+    void setup() throws IOException {
+        testDir = Files.createTempDirectory("link-resolver-test");
+        Path originalPath = Files.writeString(testDir.resolve("original.txt"), TEST_CONTENT);
+        Path duplicatePath = Files.writeString(testDir.resolve("duplicate.txt"), TEST_CONTENT);
+        original = FileMetadata.create(originalPath.toString());
+        duplicate = FileMetadata.create(duplicatePath.toString());
+    }
+
+    @AfterEach
+    void teardown() {
+        File[] files = testDir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        testDir.toFile().delete();
+    }
+
+    @Test
+    void hardLinkTest() throws IOException {
+        FileMetadata result = new LinkResolver(false).resolve(original, duplicate);
+
+        Path duplicatePath = Path.of(duplicate.path());
+        Object originalKey = Files.readAttributes(Path.of(original.path()), BasicFileAttributes.class).fileKey();
+        assertEquals(TEST_CONTENT, Files.readString(duplicatePath));
+        assertEquals(duplicate.path(), result.path());
+        if (originalKey != null) {
+            assertEquals(originalKey.toString(), result.fileKey());
+        }
+        assertTrue(Files.isSameFile(Path.of(original.path()), duplicatePath));
+        assertEquals(2, testDir.toFile().listFiles().length);
+    }
+
+    @Test
+    void reflinkOrHardLinkTest() throws IOException {
+        FileMetadata result = new LinkResolver().resolve(original, duplicate);
+
+        // Hard link is used if the file system of the test does not support reflinks.
+        assertEquals(TEST_CONTENT, Files.readString(Path.of(duplicate.path())));
+        assertEquals(duplicate.size(), result.size());
+        assertEquals(2, testDir.toFile().listFiles().length);
+        // Either link shares the data of the original file, so it is not a duplicate at the next run.
+        assertEquals(original.storageKey(), result.storageKey());
+    }
+
+    @Test
+    void unsupportedReflinkTest() {
+        assertTrue(LinkResolver.isUnsupported(
+                "cp: failed to clone 'b' from 'a': Operation not supported\n"));
+        assertTrue(LinkResolver.isUnsupported(
+                "cp: failed to clone 'b' from 'a': Invalid cross-device link\n"));
+        assertFalse(LinkResolver.isUnsupported(
+                "cp: cannot create regular file 'b': Permission denied\n"));
+    }
+
+    @Test
+    void changedOriginalTest() throws IOException {
+        Files.writeString(Path.of(original.path()), "changed");
+
+        assertThrows(IOException.class, () -> new LinkResolver(false).resolve(original, duplicate));
+        assertEquals(TEST_CONTENT, Files.readString(Path.of(duplicate.path())));
+    }
+}
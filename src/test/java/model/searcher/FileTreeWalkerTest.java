@@ -0,0 +1,108 @@
+package model.searcher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class FileTreeWalkerTest {
+
+    private static final String TEST_DIR = "fileTreeWalkerTestDir";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(Path.of(TEST_DIR, "dir1", "dir2"));
+        Files.createDirectories(Path.of(TEST_DIR, "skipped"));
+        Files.writeString(Path.of(TEST_DIR, "file1.txt"), "file1");
+        Files.writeString(Path.of(TEST_DIR, "dir1", "file2.txt"), "file2");
+        Files.writeString(Path.of(TEST_DIR, "dir1", "dir2", "file3.txt"), "file3");
+        Files.writeString(Path.of(TEST_DIR, "skipped", "file4.txt"), "file4");
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteDirectory(new File(TEST_DIR));
+    }
+
+    private static void deleteDirectory(File file) {
+        File[] list = file.listFiles();
+        if (list != null) {
+            for (File temp : list) {
+                deleteDirectory(temp);
+            }
+        }
+        file.delete();
+    }
+
+    private static Path absolute(String first, String... more) {
+        return Path.of(first, more).toAbsolutePath();
+    }
+
+    @Test
+    void walkAllTest() {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<WalkEntry> entries = new FileTreeWalker(TEST_DIR).stream()) {
+            entries.forEach(entry -> paths.add(entry.path()));
+        }
+        Assertions.assertEquals(7, paths.size());
+        Assertions.assertFalse(paths.contains(absolute(TEST_DIR)));
+
+        // Directory comes after its contents.
+        Assertions.assertTrue(paths.indexOf(absolute(TEST_DIR, "dir1"))
+                > paths.indexOf(absolute(TEST_DIR, "dir1", "file2.txt")));
+        Assertions.assertTrue(paths.indexOf(absolute(TEST_DIR, "dir1"))
+                > paths.indexOf(absolute(TEST_DIR, "dir1", "dir2")));
+        Assertions.assertTrue(paths.indexOf(absolute(TEST_DIR, "dir1", "dir2"))
+                > paths.indexOf(absolute(TEST_DIR, "dir1", "dir2", "file3.txt")));
+    }
+
+    @Test
+    void filterTest() {
+        List<Path> paths = new ArrayList<>();
+        Path skipped = absolute(TEST_DIR, "skipped");
+        try (Stream<WalkEntry> entries = new FileTreeWalker(TEST_DIR, entry -> !entry.path().equals(skipped)).stream()) {
+            entries.forEach(entry -> paths.add(entry.path()));
+        }
+        Assertions.assertFalse(paths.contains(skipped));
+        Assertions.assertFalse(paths.contains(absolute(TEST_DIR, "skipped", "file4.txt")));
+        Assertions.assertTrue(paths.contains(absolute(TEST_DIR, "dir1", "dir2", "file3.txt")));
+    }
+
+    @Test
+    void attributesTest() throws IOException {
+        try (FileTreeWalker walker = new FileTreeWalker(TEST_DIR)) {
+            while (walker.hasNext()) {
+                WalkEntry entry = walker.next();
+                Assertions.assertEquals(Files.isDirectory(entry.path()), entry.isDirectory());
+                Assertions.assertEquals(Files.getLastModifiedTime(entry.path()).toMillis(), entry.lastModified());
+                if (entry.isDirectory()) {
+                    try (Stream<Path> contents = Files.list(entry.path())) {
+                        Assertions.assertEquals(contents.count(), entry.contentCount());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void symbolicLinkTest() throws IOException {
+        Path link = Path.of(TEST_DIR, "link.txt");
+        try {
+            Files.createSymbolicLink(link, Path.of("file1.txt"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // File system does not support symbolic links.
+            return;
+        }
+        try (Stream<WalkEntry> entries = new FileTreeWalker(TEST_DIR).stream()) {
+            Assertions.assertTrue(entries.noneMatch(entry -> entry.path().equals(link.toAbsolutePath())));
+        }
+    }
+}
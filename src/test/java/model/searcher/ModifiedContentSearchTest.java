@@ -1,13 +1,20 @@
 package model.searcher;
 
+import model.metadata.DirMetadata;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ModifiedContentSearchTest {
@@ -61,5 +68,71 @@ class ModifiedContentSearchTest {
 
         tearDown(test_dir);
     }
-}
 
+    @Test
+    public void pruneUnchangedDirectoriesTest() throws Exception {
+        final String test_dir = "pruneUnchangedDirectoriesTestDir";
+        setUp(test_dir);
+        long timestamp = System.currentTimeMillis();
+        FileTime oldTime = FileTime.fromMillis(timestamp - 10_000);
+        Path dir2 = Path.of(test_dir, "dir2").toAbsolutePath();
+        Path dir3 = Path.of(test_dir, "dir3").toAbsolutePath();
+        for (Path path : List.of(dir2.resolve("test2.txt"), dir3.resolve("test3.txt"), dir2, dir3)) {
+            Files.setLastModifiedTime(path, oldTime);
+        }
+        Map<String, DirMetadata> storedDirectories = new HashMap<>();
+        try (Stream<WalkEntry> entries = new TotalSearch(test_dir).stream()) {
+            entries.filter(WalkEntry::isDirectory).forEach(entry -> storedDirectories.put(
+                    entry.path().toString(),
+                    DirMetadata.from(entry.path(), entry.attributes(), entry.contentCount())));
+        }
+
+        ModifiedContentSearch unchangedSearch = new ModifiedContentSearch(test_dir, timestamp, storedDirectories);
+        assertTrue(unchangedSearch.getDirPaths().isEmpty());
+        assertFalse(unchangedSearch.getFilePaths().contains(dir3.resolve("test3.txt").toString()));
+
+        // File edited in place deep in an unchanged directory
+        Files.setLastModifiedTime(dir3.resolve("test3.txt"), FileTime.fromMillis(timestamp + 10_000));
+        // Old file moved into a directory
+        Path movedFile = Files.createFile(dir2.resolve("moved.txt"));
+        Files.setLastModifiedTime(movedFile, oldTime);
+
+        ModifiedContentSearch modifiedContentSearch = new ModifiedContentSearch(test_dir, timestamp, storedDirectories);
+        List<String> filePaths = modifiedContentSearch.getFilePaths();
+        List<String> dirPaths = modifiedContentSearch.getDirPaths();
+
+        assertTrue(filePaths.contains(dir3.resolve("test3.txt").toString()));
+        assertTrue(filePaths.contains(movedFile.toString()));
+        assertTrue(filePaths.contains(dir2.resolve("test2.txt").toString()));
+        assertEquals(List.of(dir2.toString()), dirPaths);
+
+        tearDown(test_dir);
+    }
+
+    @Test
+    public void contentCountChangedTest() throws Exception {
+        final String test_dir = "contentCountChangedTestDir";
+        setUp(test_dir);
+        long timestamp = System.currentTimeMillis();
+        FileTime oldTime = FileTime.fromMillis(timestamp - 10_000);
+        Path dir2 = Path.of(test_dir, "dir2").toAbsolutePath();
+        Files.setLastModifiedTime(dir2.resolve("test2.txt"), oldTime);
+        Files.setLastModifiedTime(dir2, oldTime);
+        Map<String, DirMetadata> storedDirectories = Map.of(
+                dir2.toString(), new DirMetadata(dir2.toString(), oldTime.toMillis(), 1));
+
+        // Entry added without changing the modified time of the directory
+        Path movedFile = Files.createFile(dir2.resolve("moved.txt"));
+        Files.setLastModifiedTime(movedFile, oldTime);
+        Files.setLastModifiedTime(dir2, oldTime);
+
+        ModifiedContentSearch modifiedContentSearch = new ModifiedContentSearch(test_dir, timestamp, storedDirectories);
+        List<String> filePaths = modifiedContentSearch.getFilePaths();
+
+        assertTrue(filePaths.contains(movedFile.toString()));
+        assertTrue(filePaths.contains(dir2.resolve("test2.txt").toString()));
+        assertTrue(modifiedContentSearch.getDirPaths().contains(dir2.toString()));
+
+        tearDown(test_dir);
+    }
+}
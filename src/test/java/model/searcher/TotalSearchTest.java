@@ -7,7 +7,11 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.List;
 import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class TotalSearchTest {
 
@@ -86,4 +90,21 @@ class TotalSearchTest {
         int expectedDirCount =  3 + 9 + 27;
         int expectedFileCount = FILES_PER_DIR * (int) Math.pow(DIR_PER_DIR, DEPTH - 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void resumeSortedStreamTest() {
+        TotalSearch totalSearch = new TotalSearch(TEST_DIR);
+        List<String> allPaths;
+        try (Stream<WalkEntry> entries = totalSearch.sortedStream(null)) {
+            allPaths = entries.map(entry -> entry.path().toString()).toList();
+        }
+
+        // Resume after each entry gives the rest of the walk in the same order.
+        for (int i = 0; i < allPaths.size(); i++) {
+            try (Stream<WalkEntry> entries = totalSearch.sortedStream(allPaths.get(i))) {
+                List<String> resumedPaths = entries.map(entry -> entry.path().toString()).toList();
+                assertEquals(allPaths.subList(i + 1, allPaths.size()), resumedPaths);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package model.watcher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryWatcherTest {
+
+    private static final long COALESCE_MILLIS = 200;
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private Path testDir;
+
+    private DirectoryWatcher watcher;
+
+    @BeforeEach
+    void setup() throws IOException {
+        testDir = Files.createTempDirectory("directory-watcher-test").toAbsolutePath();
+        watcher = new DirectoryWatcher(COALESCE_MILLIS);
+        assertTrue(watcher.register(testDir));
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        watcher.close();
+        try (Stream<Path> paths = Files.walk(testDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void coalesceFileEventsTest() throws IOException, InterruptedException {
+        Path file = testDir.resolve("file.txt");
+        Files.writeString(file, "first");
+        Files.writeString(file, "second");
+
+        WatchBatch batch = watcher.poll(TIMEOUT_MILLIS);
+
+        assertEquals(List.of(file), List.copyOf(batch.changedPaths()));
+        assertEquals(List.of(testDir), List.copyOf(batch.changedDirectories()));
+    }
+
+    @Test
+    void deletedFileTest() throws IOException, InterruptedException {
+        Path file = Files.writeString(testDir.resolve("file.txt"), "content");
+        watcher.poll(TIMEOUT_MILLIS);
+
+        Files.delete(file);
+        WatchBatch batch = watcher.poll(TIMEOUT_MILLIS);
+
+        assertTrue(batch.changedPaths().contains(file));
+    }
+
+    @Test
+    void newDirectoryIsWatchedTest() throws IOException, InterruptedException {
+        Path subDir = Files.createDirectory(testDir.resolve("sub"));
+        WatchBatch batch = watcher.poll(TIMEOUT_MILLIS);
+        assertTrue(batch.changedPaths().contains(subDir));
+        assertEquals(2, watcher.size());
+
+        Path file = Files.writeString(subDir.resolve("file.txt"), "content");
+        batch = watcher.poll(TIMEOUT_MILLIS);
+
+        assertTrue(batch.changedPaths().contains(file));
+        assertTrue(batch.changedDirectories().contains(subDir));
+    }
+
+    @Test
+    void noEventTest() throws InterruptedException {
+        assertTrue(watcher.poll(COALESCE_MILLIS).isEmpty());
+    }
+
+    @Test
+    void registerMissingDirectoryTest() {
+        assertEquals(1, watcher.registerAll(List.of(testDir.resolve("missing"))));
+        assertEquals(1, watcher.size());
+    }
+}